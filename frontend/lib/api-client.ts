@@ -148,6 +148,12 @@ export async function getUsuario(id: number): Promise<any> {
   return data;
 }
 
+// Cuadricula semanal con las reservas del usuario
+export async function getSemanaUsuario(id: number, fecha?: string): Promise<any> {
+  const { data } = await apiClient.get(`/usuarios/${id}/semana`, { params: fecha ? { fecha } : {} });
+  return data;
+}
+
 export async function createUsuario(
   nombre: string,
   email: string,
@@ -181,6 +187,12 @@ export async function getAula(id: number): Promise<any> {
   return data;
 }
 
+// Cuadricula semanal del aula (fecha: cualquier dia de la semana, yyyy-MM-dd)
+export async function getSemanaAula(id: number, fecha?: string): Promise<any> {
+  const { data } = await apiClient.get(`/aulas/${id}/semana`, { params: fecha ? { fecha } : {} });
+  return data;
+}
+
 export async function createAula(
   nombre: string,
   capacidad: number,
@@ -229,9 +241,20 @@ export async function deleteHorario(id: number): Promise<void> {
 }
 
 // Reservas endpoints
-export async function getReservas(): Promise<any[]> {
-  const { data } = await apiClient.get("/reservas");
-  return data;
+// El backend pagina por cursor, se recorren las paginas hasta que no haya siguienteCursor
+export async function getReservas(params: Record<string, any> = {}): Promise<any[]> {
+  const reservas: any[] = [];
+  let cursor: string | null = null;
+
+  do {
+    const { data } = await apiClient.get("/reservas", {
+      params: { ...params, size: 200, ...(cursor ? { cursor } : {}) },
+    });
+    reservas.push(...data.reservas);
+    cursor = data.siguienteCursor;
+  } while (cursor);
+
+  return reservas;
 }
 
 export async function getReserva(id: number): Promise<any> {
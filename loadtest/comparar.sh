@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Ejecuta el mismo escenario de carga contra la aplicacion arrancada en los dos modos
+# (hilos de plataforma y perfil "virtual") y muestra rendimiento y p99 de cada endpoint.
+#
+# Requisitos: el JAR compilado (./mvnw package -DskipTests), k6, jq, curl y la base de datos
+# configurada con las variables SPRING_DATASOURCE_URL/USERNAME/PASSWORD. La base de datos y
+# el ritmo de peticiones deben ser los mismos en las dos ejecuciones.
+#
+# Variables opcionales: DURACION (2m), RATE_RESERVAS (400), RATE_LOGIN (20), HIKARI_MAX_POOL
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=$(ls target/reservas-*.jar | grep -v original | head -n 1)
+mkdir -p loadtest/resultados
+
+esperar_arranque() {
+    for _ in $(seq 1 120); do
+        if curl -sf http://localhost:8080/actuator/health > /dev/null; then
+            return 0
+        fi
+        sleep 1
+    done
+
+    echo "La aplicacion no arranco" >&2
+    return 1
+}
+
+ejecutar() {
+    local modo=$1
+    local perfil=$2
+
+    echo "== Modo $modo =="
+
+    # Sin trazas de SQL por consola, que en otro caso dominan el tiempo de cada peticion, y sin
+    # limites por IP y cuenta del login (todas las peticiones usan la misma cuenta desde la misma IP)
+    java -jar "$JAR" --spring.profiles.active="$perfil" --spring.jpa.show-sql=false \
+        --reservas.auth.ip.capacidad=1000000 --reservas.auth.ip.por-minuto=1000000 \
+        --reservas.auth.cuenta.capacidad=1000000 --reservas.auth.cuenta.por-minuto=1000000 \
+        > "loadtest/resultados/$modo.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+
+    esperar_arranque
+
+    # Calentamiento corto para que el JIT y el pool de conexiones no penalicen al primer modo
+    k6 run --quiet -e MODO="calentamiento-$modo" -e DURACION=20s loadtest/reservas.js > /dev/null || true
+    k6 run -e MODO="$modo" loadtest/reservas.js || true
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+ejecutar plataforma default
+ejecutar virtual virtual
+
+echo
+printf '%-12s %-10s %12s %12s %12s %10s\n' modo endpoint 'peticiones/s' 'p99 (ms)' 'p50 (ms)' errores
+for modo in plataforma virtual; do
+    for endpoint in reservas login; do
+        jq -r --arg m "$modo" --arg e "$endpoint" '
+            .metrics as $x
+            | [$m, $e,
+               ($x["http_reqs{endpoint:\($e)}"].values.rate),
+               ($x["http_req_duration{endpoint:\($e)}"].values["p(99)"]),
+               ($x["http_req_duration{endpoint:\($e)}"].values["p(50)"]),
+               ($x["http_req_failed{endpoint:\($e)}"].values.rate)]
+            | "\(.[0])\t\(.[1])\t\(.[2]*100|round/100)\t\(.[3]*100|round/100)\t\(.[4]*100|round/100)\t\(.[5]*10000|round/100)%"' \
+            "loadtest/resultados/$modo.json" \
+        | awk -F'\t' '{ printf "%-12s %-10s %12s %12s %12s %10s\n", $1, $2, $3, $4, $5, $6 }'
+    done
+done
@@ -0,0 +1,88 @@
+// Escenario de carga para comparar el modo de hilos de plataforma con el de hilos virtuales.
+// Dos escenarios simultaneos a ritmo constante (llegadas por segundo, no usuarios en bucle,
+// para que un servidor lento no reduzca la carga que recibe):
+//   - listado: GET /reservas con un token de PROFESOR (consulta a la base de datos)
+//   - login:   POST /auth/login (BCrypt, coste de CPU)
+//
+// k6 run -e MODO=plataforma loadtest/reservas.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODO = __ENV.MODO || 'plataforma';
+const DURACION = __ENV.DURACION || '2m';
+const EMAIL = __ENV.EMAIL || 'carga@reservas.local';
+const PASSWORD = __ENV.PASSWORD || 'carga-123456';
+
+export const options = {
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        listado: {
+            executor: 'constant-arrival-rate',
+            exec: 'listado',
+            rate: Number(__ENV.RATE_RESERVAS || 400),
+            timeUnit: '1s',
+            duration: DURACION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+            tags: { endpoint: 'reservas' },
+        },
+        login: {
+            executor: 'constant-arrival-rate',
+            exec: 'login',
+            rate: Number(__ENV.RATE_LOGIN || 20),
+            timeUnit: '1s',
+            duration: DURACION,
+            preAllocatedVUs: 50,
+            maxVUs: 500,
+            tags: { endpoint: 'login' },
+        },
+    },
+    // Umbrales por endpoint: ademas de fallar la prueba hacen que el resumen incluya
+    // las metricas de cada endpoint por separado
+    thresholds: {
+        'http_req_duration{endpoint:reservas}': ['p(99)<2000'],
+        'http_req_duration{endpoint:login}': ['p(99)<5000'],
+        'http_req_failed{endpoint:reservas}': ['rate<0.01'],
+        'http_req_failed{endpoint:login}': ['rate<0.01'],
+        'http_reqs{endpoint:reservas}': ['count>0'],
+        'http_reqs{endpoint:login}': ['count>0'],
+    },
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+// El usuario de la prueba se registra una vez (si ya existe el registro falla y se ignora)
+export function setup() {
+    http.post(`${BASE_URL}/auth/register`, JSON.stringify({ email: EMAIL, password: PASSWORD, nombre: 'Carga' }), JSON_HEADERS);
+
+    const res = http.post(`${BASE_URL}/auth/login`, JSON.stringify({ email: EMAIL, password: PASSWORD }), JSON_HEADERS);
+
+    if (res.status !== 200) {
+        throw new Error(`No se pudo iniciar sesion: ${res.status} ${res.body}`);
+    }
+
+    return { token: res.json('token') };
+}
+
+export function listado(datos) {
+    const res = http.get(`${BASE_URL}/reservas?size=50`, {
+        headers: { Authorization: `Bearer ${datos.token}` },
+    });
+
+    check(res, { 'listado 200': (r) => r.status === 200 });
+}
+
+export function login() {
+    const res = http.post(`${BASE_URL}/auth/login`, JSON.stringify({ email: EMAIL, password: PASSWORD }), JSON_HEADERS);
+
+    check(res, { 'login 200': (r) => r.status === 200 });
+}
+
+// Resumen en JSON por modo para que comparar.sh construya la tabla
+export function handleSummary(datos) {
+    return {
+        [`loadtest/resultados/${MODO}.json`]: JSON.stringify(datos, null, 2),
+        stdout: `\nResultados guardados en loadtest/resultados/${MODO}.json\n`,
+    };
+}
@@ -0,0 +1,8 @@
+#!/bin/bash
+# Usuario de replicacion para la replica de compose.yml (solo para pruebas en local)
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" \
+    -c "CREATE ROLE replicacion WITH REPLICATION LOGIN PASSWORD 'replicacion'"
+
+echo "host replication replicacion all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,37 @@
+package io.github.isaac.reservas.benchmarks;
+
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.services.auth.UsuarioPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// Conversion de la columna roles ("ROLE_A,ROLE_B") a autoridades en cada peticion
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoridadesBenchmark {
+    private Usuario usuario;
+    private UsuarioPrincipal principal;
+
+    @Setup
+    public void setup() {
+        usuario = Datos.usuario(1);
+        principal = new UsuarioPrincipal(1L, usuario.getEmail(), usuario.getPassword(), usuario.getRoles(), true);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> usuario() {
+        return usuario.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> principal() {
+        return principal.getAuthorities();
+    }
+}
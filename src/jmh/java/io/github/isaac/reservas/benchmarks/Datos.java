@@ -0,0 +1,81 @@
+package io.github.isaac.reservas.benchmarks;
+
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Grafos de entidades de ejemplo compartidos por los benchmarks
+final class Datos {
+    static final LocalTime PRIMERA_HORA = LocalTime.of(8, 0);
+
+    private Datos() {
+    }
+
+    static Aula aula(long id, int capacidad) {
+        Aula aula = Aula.builder()
+                .id(id)
+                .nombre("Aula " + id)
+                .capacidad(capacidad)
+                .esOrdenadores(id % 2 == 0)
+                .build();
+
+        aula.setReservas(new ArrayList<>());
+        return aula;
+    }
+
+    // Seis tramos de una hora a partir de las 8:00
+    static Horario horario(long id) {
+        LocalTime inicio = PRIMERA_HORA.plusHours((id - 1) % 6);
+
+        return Horario.builder()
+                .id(id)
+                .diaSemana(DiaSemana.LUNES)
+                .tipo(TipoHorario.LECTIVA)
+                .inicio(inicio)
+                .fin(inicio.plusHours(1))
+                .sessionDia((int) id)
+                .reservas(new ArrayList<>())
+                .build();
+    }
+
+    static Usuario usuario(long id) {
+        return Usuario.builder()
+                .id(id)
+                .nombre("Usuario " + id)
+                .email("usuario" + id + "@reservas.test")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5VZ3bCYsA1v1N5rOZ5qfPZa")
+                .roles("ROLE_PROFESOR,ROLE_ADMIN")
+                .enabled(true)
+                .reservas(new ArrayList<>())
+                .build();
+    }
+
+    // Reservas de un mismo usuario y aula repartidas por dias y horarios
+    static List<Reserva> reservas(int cantidad, Aula aula, Usuario usuario) {
+        List<Reserva> reservas = new ArrayList<>(cantidad);
+        LocalDate hoy = LocalDate.now();
+
+        for (int i = 0; i < cantidad; i++) {
+            reservas.add(Reserva.builder()
+                    .id((long) i + 1)
+                    .fecha(hoy.plusDays(i / 6))
+                    .motivo("Clase " + i)
+                    .asistentes(20)
+                    .createAt(hoy)
+                    .aula(aula)
+                    .horario(horario(i % 6 + 1))
+                    .usuario(usuario)
+                    .build());
+        }
+
+        return reservas;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.isaac.reservas.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.isaac.reservas.config.SecurityConfig;
+import io.github.isaac.reservas.services.auth.AnilloClavesJwt;
+import io.github.isaac.reservas.services.auth.JWTService;
+import io.github.isaac.reservas.services.auth.UsuarioPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Emision de tokens con jjwt y verificacion con el mismo decoder Nimbus que usa SecurityConfig
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JWTService jwtService;
+    private JwtDecoder decoder;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setup() throws IOException {
+        AnilloClavesJwt anillo = new AnilloClavesJwt("", "", Duration.ofDays(7), Duration.ofHours(24), Duration.ofMinutes(1), new ObjectMapper());
+        jwtService = new JWTService(anillo, Duration.ofHours(24));
+        decoder = SecurityConfig.decoderPorKid(anillo);
+
+        UsuarioPrincipal principal = new UsuarioPrincipal(1L, "profesor@reservas.test", "hash", "ROLE_PROFESOR,ROLE_ADMIN", true);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtService.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+}
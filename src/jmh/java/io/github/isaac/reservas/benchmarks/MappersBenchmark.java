@@ -0,0 +1,77 @@
+package io.github.isaac.reservas.benchmarks;
+
+import io.github.isaac.reservas.dtos.aula.AulaResponse;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.dtos.reserva.ReservaResponse;
+import io.github.isaac.reservas.dtos.usuario.UsuarioResponse;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.mappers.AulaMapper;
+import io.github.isaac.reservas.mappers.AulaMapperImpl;
+import io.github.isaac.reservas.mappers.ReservaMapper;
+import io.github.isaac.reservas.mappers.ReservaMapperImpl;
+import io.github.isaac.reservas.mappers.UsuarioMapper;
+import io.github.isaac.reservas.mappers.UsuarioMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mappers de MapStruct. Aulas y usuarios ya no recorren sus reservas (las anidadas se consultan
+// aparte), las reservas se mapean desde entidades o desde filas planas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappersBenchmark {
+    @Param({"10", "1000"})
+    private int reservas;
+
+    private final ReservaMapper reservaMapper = new ReservaMapperImpl();
+    private final AulaMapper aulaMapper = new AulaMapperImpl();
+    private final UsuarioMapper usuarioMapper = new UsuarioMapperImpl();
+
+    private Aula aula;
+    private Usuario usuario;
+    private List<Reserva> listado;
+    private List<ReservaFila> filas;
+
+    @Setup
+    public void setup() {
+        aula = Datos.aula(1, 30);
+        usuario = Datos.usuario(1);
+        listado = Datos.reservas(reservas, aula, usuario);
+
+        filas = listado.stream()
+                .map(r -> new ReservaFila(
+                        r.getId(), r.getFecha(), r.getMotivo(), r.getAsistentes(),
+                        aula.getId(), aula.getNombre(), aula.getCapacidad(), aula.isEsOrdenadores(),
+                        r.getHorario().getId(), r.getHorario().getInicio(), r.getHorario().getFin(), r.getHorario().getTipo(),
+                        usuario.getId(), usuario.getNombre()
+                ))
+                .toList();
+    }
+
+    @Benchmark
+    public AulaResponse aula() {
+        return aulaMapper.toDto(aula);
+    }
+
+    @Benchmark
+    public UsuarioResponse usuario() {
+        return usuarioMapper.toDto(usuario);
+    }
+
+    @Benchmark
+    public List<ReservaResponse> reservasDesdeEntidades() {
+        return listado.stream().map(reservaMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<ReservaResponse> reservasDesdeFilas() {
+        return filas.stream().map(reservaMapper::toDto).toList();
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.isaac.reservas.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+// Repositorios en memoria para los benchmarks: cada metodo usado devuelve la respuesta
+// indicada por nombre, asi se mide la logica del servicio sin base de datos
+final class Stubs {
+    private Stubs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T repositorio(Class<T> tipo, Map<String, Function<Object[], Object>> respuestas) {
+        return (T) Proxy.newProxyInstance(
+                tipo.getClassLoader(),
+                new Class<?>[]{tipo},
+                (proxy, metodo, args) -> {
+                    Function<Object[], Object> respuesta = respuestas.get(metodo.getName());
+
+                    if (respuesta == null) {
+                        throw new UnsupportedOperationException(tipo.getSimpleName() + "." + metodo.getName());
+                    }
+
+                    return respuesta.apply(args);
+                }
+        );
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.isaac.reservas.benchmarks;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
+import io.github.isaac.reservas.dtos.reserva.ReservaResponse;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.mappers.ReservaMapperImpl;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.services.ReservaService;
+import io.github.isaac.reservas.services.metricas.MetricasReservas;
+import io.github.isaac.reservas.services.ocupacion.OcupacionAulas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Validacion de addReserva (capacidad y solapamiento) con el indice de ocupacion cargado.
+// Los repositorios son stubs en memoria, se mide solo la logica del servicio
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacionReservaBenchmark {
+    private static final int AULAS = 50;
+
+    // Reservas cargadas en el indice
+    @Param({"1000", "100000"})
+    private int reservasIndice;
+
+    private OcupacionAulas ocupacion;
+    private ReservaService reservaService;
+
+    private ReservaPostRequest libre;
+    private ReservaPostRequest ocupada;
+    private LocalDate fechaOcupada;
+    private Horario horarioOcupado;
+
+    @Setup
+    public void setup() {
+        LocalDate hoy = LocalDate.now();
+        List<ReservaSnapshot> existentes = new ArrayList<>(reservasIndice);
+
+        // Los cinco primeros horarios de cada dia ocupados en todas las aulas, el sexto libre
+        for (int i = 0; i < reservasIndice; i++) {
+            Horario horario = Datos.horario(i % 5 + 1);
+            long aulaId = (i / 5) % AULAS + 1;
+            LocalDate fecha = hoy.plusDays(i / (5 * AULAS));
+
+            existentes.add(new ReservaSnapshot((long) i + 1, aulaId, horario.getId(), 1L, fecha, horario.getInicio(), horario.getFin(), 20));
+        }
+
+        RepositoryReserva reservas = Stubs.repositorio(RepositoryReserva.class, Map.of(
+                "findSnapshotsDesde", args -> existentes,
+                // La base de datos confirma los tramos que el indice ve ocupados (todos menos el sexto)
+                "existsSolapamiento", args -> !args[2].equals(Datos.horario(6).getInicio()),
+                "save", args -> args[0]
+        ));
+
+        ocupacion = new OcupacionAulas(reservas);
+        ocupacion.reconstruir();
+
+        Aula aula = Datos.aula(1, 30);
+        Usuario usuario = Datos.usuario(1);
+        horarioOcupado = Datos.horario(1);
+        fechaOcupada = hoy;
+        Horario horarioLibre = Datos.horario(6);
+
+        RepositoryAula aulas = Stubs.repositorio(RepositoryAula.class, Map.of(
+                "findById", args -> Optional.of(aula)
+        ));
+        RepositoryUsuario usuarios = Stubs.repositorio(RepositoryUsuario.class, Map.of(
+                "findById", args -> Optional.of(usuario)
+        ));
+        RepositoryHorario horarios = Stubs.repositorio(RepositoryHorario.class, Map.of(
+                "findById", args -> Optional.of(args[0].equals(6L) ? horarioLibre : horarioOcupado)
+        ));
+
+        reservaService = new ReservaService(usuarios, reservas, horarios, aulas, new ReservaMapperImpl(), ocupacion, evento -> { },
+                new MetricasReservas(new SimpleMeterRegistry()));
+
+        libre = solicitud(6L, hoy);
+        ocupada = solicitud(1L, hoy);
+    }
+
+    @Benchmark
+    public Optional<Boolean> indiceHaySolapamiento() {
+        return ocupacion.haySolapamiento(1L, fechaOcupada, horarioOcupado.getInicio(), horarioOcupado.getFin(), null);
+    }
+
+    @Benchmark
+    public ReservaResponse addReservaLibre() {
+        return reservaService.addReserva(libre);
+    }
+
+    @Benchmark
+    public String addReservaSolapada() {
+        try {
+            reservaService.addReserva(ocupada);
+            throw new IllegalStateException("Se esperaba solapamiento");
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static ReservaPostRequest solicitud(Long horarioId, LocalDate fecha) {
+        ReservaPostRequest request = new ReservaPostRequest();
+        request.setAulaId(1L);
+        request.setUsuarioId(1L);
+        request.setHorarioId(horarioId);
+        request.setFecha(fecha);
+        request.setMotivo("Benchmark");
+        request.setAsistentes(20);
+
+        return request;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.isaac.reservas.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USUARIOS_DETALLES = "usuariosDetalles";
+
+    // Catalogos de aulas y horarios sin sus reservas (CatalogosBase): listado completo y por id,
+    // una entrada por version de la coleccion
+    public static final String AULAS = "aulas";
+    public static final String AULA = "aula";
+    public static final String HORARIOS = "horarios";
+    public static final String HORARIO = "horario";
+
+    // Cuadriculas semanales por aula o usuario y semana, una entrada por version de las reservas
+    public static final String SEMANAS = "semanas";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${reservas.cache.usuarios-detalles:maximumSize=5000,expireAfterWrite=10m}") String usuariosDetalles,
+            @Value("${reservas.cache.catalogos:maximumSize=1000,expireAfterWrite=30m}") String catalogos,
+            @Value("${reservas.cache.semanas:maximumSize=5000,expireAfterWrite=1h}") String semanas) {
+
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+
+        // Solo existen las caches registradas aqui, no se crean al vuelo
+        manager.setCacheNames(List.of());
+
+        // Cada cache tiene su propio tamaño maximo y caducidad, todas registran estadisticas
+        manager.registerCustomCache(USUARIOS_DETALLES, Caffeine.from(usuariosDetalles).recordStats().build());
+
+        for (String catalogo : List.of(AULAS, AULA, HORARIOS, HORARIO)) {
+            manager.registerCustomCache(catalogo, Caffeine.from(catalogos).recordStats().build());
+        }
+
+        manager.registerCustomCache(SEMANAS, Caffeine.from(semanas).recordStats().build());
+
+        // Las invalidaciones dentro de una transaccion se aplican tras el commit, asi una
+        // lectura concurrente no vuelve a cachear el dato antiguo antes de confirmarse
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+}
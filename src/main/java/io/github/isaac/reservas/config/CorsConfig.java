@@ -19,7 +19,8 @@ public class CorsConfig {
 
         config.setAllowedOrigins(List.of("https://programa-de-reservas.vercel.app")); // tu frontend
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("content-type", "authorization"));
+        config.setAllowedHeaders(List.of("content-type", "authorization", "if-none-match", "last-event-id", "x-leer-primaria"));
+        config.setExposedHeaders(List.of("etag"));  // GET condicionales (304 Not Modified)
         config.setAllowCredentials(true); // solo si usas cookies o tokens
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
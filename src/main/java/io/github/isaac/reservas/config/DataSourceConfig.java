@@ -0,0 +1,70 @@
+package io.github.isaac.reservas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Pool de la primaria con spring.datasource.* y, si se configura reservas.replica.url, un
+// segundo pool para la replica con las lecturas enrutadas por EnrutadorLecturas
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(
+            DataSourceProperties propiedades,
+            Environment entorno,
+            MeterRegistry registry,
+            @Value("${reservas.replica.url:}") String url,
+            @Value("${reservas.replica.username:}") String usuario,
+            @Value("${reservas.replica.password:}") String password,
+            @Value("${reservas.replica.max-pool:10}") int maxPool,
+            @Value("${reservas.replica.espera-conexion:PT1S}") Duration esperaConexion,
+            @Value("${reservas.replica.reintento:PT30S}") Duration reintento) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        // Lo mismo que hace la autoconfiguracion de Spring Boot con spring.datasource.hikari.*
+        Binder.get(entorno).bind("spring.datasource.hikari", Bindable.ofInstance(primaria));
+
+        if (url.isBlank()) {
+            return primaria;
+        }
+
+        if (primaria.getPoolName() == null) {
+            primaria.setPoolName("primaria");
+        }
+
+        // Misma configuracion que la primaria salvo conexion y tamano. Si la replica no esta
+        // disponible al arrancar la aplicacion arranca igual y lee de la primaria
+        HikariDataSource replica = new HikariDataSource();
+        primaria.copyStateTo(replica);
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(url);
+        replica.setMaximumPoolSize(maxPool);
+        replica.setMinimumIdle(Math.min(maxPool, replica.getMinimumIdle()));
+        replica.setConnectionTimeout(esperaConexion.toMillis());
+        replica.setInitializationFailTimeout(-1);
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+        if (!usuario.isBlank()) {
+            replica.setUsername(usuario);
+            replica.setPassword(password);
+        }
+
+        log.info("Lecturas de solo lectura enrutadas a la replica {}", url);
+
+        return new EnrutadorLecturas(primaria, replica, reintento, registry);
+    }
+}
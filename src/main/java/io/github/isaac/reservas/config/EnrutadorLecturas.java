@@ -0,0 +1,106 @@
+package io.github.isaac.reservas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// DataSource de la aplicacion cuando hay replica. La conexion real se obtiene en la primera
+// sentencia, cuando la transaccion ya ha marcado la conexion como de solo lectura:
+//   - @Transactional(readOnly = true) y las lecturas de los repositorios van a la replica,
+//     salvo que LecturaPrimaria pida la primaria
+//   - el resto de transacciones van a la primaria
+// Si la replica no da conexion se lee de la primaria y no se vuelve a intentar hasta pasado
+// el tiempo de reintento, asi una replica caida no retrasa cada peticion
+@Slf4j
+public class EnrutadorLecturas extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    private final HikariDataSource primaria;
+    private final HikariDataSource replica;
+
+    public EnrutadorLecturas(HikariDataSource primaria, HikariDataSource replica, Duration reintento, MeterRegistry registry) {
+        this.primaria = primaria;
+        this.replica = replica;
+
+        // Una conexion de escritura marca la peticion para que sus lecturas siguientes vean lo escrito
+        setTargetDataSource(new DelegatingDataSource(primaria) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                LecturaPrimaria.escritura();
+                return super.getConnection();
+            }
+        });
+
+        setReadOnlyDataSource(new Lecturas(primaria, replica, reintento, registry));
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primaria.close();
+    }
+
+    private static class Lecturas extends AbstractDataSource {
+        private final HikariDataSource primaria;
+        private final HikariDataSource replica;
+        private final long reintento;
+        private final Counter enReplica;
+        private final Counter enPrimaria;
+        private final Counter sinReplica;
+
+        // Instante (System.nanoTime) a partir del cual se vuelve a probar la replica
+        private volatile long reintentarEn = System.nanoTime();
+
+        Lecturas(HikariDataSource primaria, HikariDataSource replica, Duration reintento, MeterRegistry registry) {
+            this.primaria = primaria;
+            this.replica = replica;
+            this.reintento = reintento.toNanos();
+            this.enReplica = contador(registry, "replica");
+            this.enPrimaria = contador(registry, "primaria");
+            this.sinReplica = contador(registry, "sin-replica");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (LecturaPrimaria.activa()) {
+                enPrimaria.increment();
+                return primaria.getConnection();
+            }
+
+            if (System.nanoTime() - reintentarEn < 0) {
+                sinReplica.increment();
+                return primaria.getConnection();
+            }
+
+            try {
+                Connection conexion = replica.getConnection();
+                enReplica.increment();
+                return conexion;
+            } catch (SQLException e) {
+                reintentarEn = System.nanoTime() + reintento;
+                log.warn("Replica no disponible, se lee de la primaria durante {} s: {}", reintento / 1_000_000_000, e.getMessage());
+
+                sinReplica.increment();
+                return primaria.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Las credenciales se configuran en cada pool");
+        }
+
+        private static Counter contador(MeterRegistry registry, String destino) {
+            return Counter.builder("reservas.datasource.lecturas")
+                    .description("Transacciones de solo lectura segun la base de datos que las atiende")
+                    .tag("destino", destino)
+                    .register(registry);
+        }
+    }
+}
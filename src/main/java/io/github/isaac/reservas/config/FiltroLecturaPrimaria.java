@@ -0,0 +1,30 @@
+package io.github.isaac.reservas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Delimita cada peticion para LecturaPrimaria y recoge la cabecera X-Leer-Primaria
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FiltroLecturaPrimaria extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LecturaPrimaria.iniciarPeticion("true".equalsIgnoreCase(request.getHeader(LecturaPrimaria.CABECERA)));
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LecturaPrimaria.terminarPeticion();
+        }
+    }
+}
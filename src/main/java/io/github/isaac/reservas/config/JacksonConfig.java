@@ -0,0 +1,20 @@
+package io.github.isaac.reservas.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Sin ?fields= los DTOs con @JsonFilter se serializan completos (FiltroCampos pone el filtro
+    // de cada peticion). Sin un filtro por defecto Jackson fallaria al no encontrarlo
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer filtroCamposPorDefecto() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(CamposRespuesta.FILTRO, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
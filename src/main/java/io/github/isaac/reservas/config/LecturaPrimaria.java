@@ -0,0 +1,68 @@
+package io.github.isaac.reservas.config;
+
+import java.util.function.Supplier;
+
+// Decide si una transaccion de solo lectura puede ir a la replica o debe leer de la primaria.
+// Se lee de la primaria:
+//   - dentro de LecturaPrimaria.ejecutar (cargas de caches, que no deben guardar datos atrasados)
+//   - en una peticion con la cabecera X-Leer-Primaria: true (el cliente acaba de escribir)
+//   - en una peticion que ya ha escrito, p. ej. los listeners que se ejecutan tras el commit
+// Fuera de estos casos la replica puede ir algo por detras de la primaria
+public final class LecturaPrimaria {
+    public static final String CABECERA = "X-Leer-Primaria";
+
+    private static final ThreadLocal<Estado> ESTADO = ThreadLocal.withInitial(Estado::new);
+
+    private LecturaPrimaria() {
+    }
+
+    public static <T> T ejecutar(Supplier<T> lectura) {
+        Estado estado = ESTADO.get();
+        estado.forzada++;
+
+        try {
+            return lectura.get();
+        } finally {
+            estado.forzada--;
+        }
+    }
+
+    public static void ejecutar(Runnable lectura) {
+        ejecutar(() -> {
+            lectura.run();
+            return null;
+        });
+    }
+
+    public static boolean activa() {
+        Estado estado = ESTADO.get();
+
+        return estado.forzada > 0 || estado.pedida || estado.escrito;
+    }
+
+    // Solo se recuerda dentro de una peticion, los hilos de tareas programadas no la tienen
+    static void escritura() {
+        Estado estado = ESTADO.get();
+
+        if (estado.peticion) {
+            estado.escrito = true;
+        }
+    }
+
+    static void iniciarPeticion(boolean pedida) {
+        Estado estado = ESTADO.get();
+        estado.peticion = true;
+        estado.pedida = pedida;
+    }
+
+    static void terminarPeticion() {
+        ESTADO.remove();
+    }
+
+    private static final class Estado {
+        private boolean peticion;
+        private boolean pedida;
+        private boolean escrito;
+        private int forzada;
+    }
+}
@@ -1,6 +1,14 @@
 package io.github.isaac.reservas.config;
 
-import io.github.isaac.reservas.services.auth.JWTService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.github.isaac.reservas.services.auth.AnilloClavesJwt;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,13 +32,15 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableMethodSecurity  // Permite usar @PreAuthorize en controladores
 @RequiredArgsConstructor
 public class SecurityConfig {
-    private final JWTService jwtService;
+    private final AnilloClavesJwt anillo;
+    private final MeterRegistry registry;
 
     private static final String[] PUBLIC_URLS = {
             "/auth/**",
             "/docs/**",
             "/favicon.svg",
             "/actuator/health/**",
+            "/actuator/prometheus",
             "/v3/api-docs/**",
     };
 
@@ -43,6 +53,8 @@ public class SecurityConfig {
                 // Configurar autorización de peticiones HTTP
                 // Define qué rutas son públicas y cuáles requieren autenticación
                 .authorizeHttpRequests(auth -> auth
+                        // Los despachos asincronos (stream de cambios) ya se autorizaron en la peticion original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(PUBLIC_URLS).permitAll()
                         .requestMatchers("/actuator/scalar").authenticated()
                         .anyRequest().authenticated()
@@ -67,8 +79,29 @@ public class SecurityConfig {
 
     @Bean
     public JwtDecoder jwtDecoder() {
-        // Configura cómo validar los tokens JWT con la clave secreta
-        return NimbusJwtDecoder.withSecretKey(jwtService.getSecretKey()).build();
+        // Configura cómo validar los tokens JWT con las claves del anillo
+        JwtDecoder decoder = decoderPorKid(anillo);
+
+        // Se mide la verificacion de cada token (firma y claims), se ejecuta en todas las peticiones
+        Timer verificacion = Timer.builder("reservas.jwt.verificacion")
+                .description("Verificacion de tokens JWT")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        return token -> verificacion.record(() -> decoder.decode(token));
+    }
+
+    // Cada token se verifica con la clave de su kid, la lista de claves se consulta en cada
+    // peticion para ver las rotaciones sin reiniciar. Los tokens sin kid se prueban con todas
+    public static JwtDecoder decoderPorKid(AnilloClavesJwt anillo) {
+        JWKSource<SecurityContext> claves = (selector, contexto) -> selector.select(anillo.getJwks());
+
+        DefaultJWTProcessor<SecurityContext> procesador = new DefaultJWTProcessor<>();
+        procesador.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.HS256, claves));
+        // Las fechas las valida Spring (JwtValidators), igual que con NimbusJwtDecoder.withSecretKey
+        procesador.setJWTClaimsSetVerifier((claims, contexto) -> {});
+
+        return new NimbusJwtDecoder(procesador);
     }
 
     @Bean
@@ -1,9 +1,16 @@
 package io.github.isaac.reservas.controllers;
 
+import io.github.isaac.reservas.dtos.aula.AulaDisponible;
+import io.github.isaac.reservas.dtos.aula.AulaDisponibleFiltro;
 import io.github.isaac.reservas.dtos.aula.AulaPostRequest;
 import io.github.isaac.reservas.dtos.aula.AulaResponse;
 import io.github.isaac.reservas.dtos.aula.AulaUpdateRequest;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse;
 import io.github.isaac.reservas.services.AulaService;
+import io.github.isaac.reservas.services.semana.SemanaService;
+import io.github.isaac.reservas.services.version.Coleccion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,12 +19,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -28,15 +39,32 @@ import java.util.List;
 public class ControllerAula {
 
     private final AulaService aulaService;
+    private final SemanaService semanaService;
+    private final RespuestasCondicionales condicionales;
+    private final FormaRespuesta forma;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
-    @Operation(summary = "Listar aulas", description = "Obtiene el listado completo de aulas incluyendo reservas enlazadas (si las hubiera)")
+    @Operation(summary = "Listar aulas", description = "Obtiene el listado completo de aulas con su total de reservas y las proximas. Con fields se eligen los campos y con expand cuantas reservas y desde que fecha")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Listado recuperado correctamente")
+            @ApiResponse(responseCode = "200", description = "Listado recuperado correctamente"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos")
     })
-    public ResponseEntity<List<AulaResponse>> getAulas() {
-        return ResponseEntity.ok(aulaService.getAulas());
+    public ResponseEntity<List<AulaResponse>> getAulas(@ParameterObject CamposRespuesta campos, WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, AulaResponse.class);
+        return condicionales.responder(request, Coleccion.AULAS, reservas, () -> ResponseEntity.ok(aulaService.getAulas(reservas)));
+    }
+
+    @GetMapping("/disponibles")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Buscar aulas libres", description = "Obtiene las aulas sin reservas en el horario indicado, primero las de capacidad mas ajustada. Con hasta se buscan aulas libres en todas las semanas del rango")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Filtro no valido"),
+            @ApiResponse(responseCode = "404", description = "Horario no encontrado")
+    })
+    public ResponseEntity<List<AulaDisponible>> getAulasDisponibles(@Valid @ParameterObject AulaDisponibleFiltro filtro, WebRequest request) {
+        return condicionales.responder(request, Coleccion.RESERVAS, () -> ResponseEntity.ok(aulaService.getAulasDisponibles(filtro)));
     }
 
     @PostMapping
@@ -85,12 +113,33 @@ public class ControllerAula {
     @Operation(summary = "Obtener aula", description = "Obtiene los datos de un aula por su ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Encontrada"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos"),
             @ApiResponse(responseCode = "404", description = "No encontrada")
     })
     public ResponseEntity<AulaResponse> getAula(
-            @Parameter(description = "ID del aula", required = true) @PathVariable Long id) {
-        return aulaService.getAula(id)
+            @Parameter(description = "ID del aula", required = true) @PathVariable Long id,
+            @ParameterObject CamposRespuesta campos,
+            WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, AulaResponse.class);
+        return condicionales.responder(request, Coleccion.AULAS, reservas, () -> aulaService.getAula(id, reservas)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/{id}/semana")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Semana del aula", description = "Cuadricula de lunes a domingo de la semana de la fecha con los tramos horarios de cada dia y sus reservas")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag enviado"),
+            @ApiResponse(responseCode = "404", description = "No encontrada")
+    })
+    public ResponseEntity<SemanaResponse> getSemana(
+            @Parameter(description = "ID del aula", required = true) @PathVariable Long id,
+            @Parameter(description = "Cualquier fecha de la semana (yyyy-MM-dd), por defecto hoy")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            WebRequest request) {
+        return condicionales.responder(request, Coleccion.RESERVAS,
+                () -> ResponseEntity.ok(semanaService.getSemanaAula(id, fecha != null ? fecha : LocalDate.now())));
     }
 }
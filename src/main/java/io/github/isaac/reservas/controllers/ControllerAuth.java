@@ -3,7 +3,9 @@ package io.github.isaac.reservas.controllers;
 import io.github.isaac.reservas.dtos.auth.ChangePasswordRequest;
 import io.github.isaac.reservas.dtos.auth.LoginRequest;
 import io.github.isaac.reservas.dtos.auth.RegisterRequest;
+import io.github.isaac.reservas.exceptions.DemasiadasPeticionesException;
 import io.github.isaac.reservas.services.auth.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.persistence.EntityExistsException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -34,15 +36,19 @@ public class ControllerAuth {
     @Operation(summary = "Login", description = "Autentica un usuario y devuelve un token JWT", security = {})
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Autenticado", content = @Content(schema = @Schema(implementation = Map.class))),
-            @ApiResponse(responseCode = "401", description = "Credenciales no válidas")
+            @ApiResponse(responseCode = "401", description = "Credenciales no válidas"),
+            @ApiResponse(responseCode = "429", description = "Demasiados intentos desde la IP o para la cuenta, o servidor saturado")
     })
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest http) {
         try {
-            String token = authService.verify(request);
+            String token = authService.verify(request, http.getRemoteAddr());
             return ResponseEntity.ok(Map.of("token", token));
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Credenciales no validas"));
+        } catch (DemasiadasPeticionesException e) {
+            // Lo responde GlobalExceptionHandler con 429 y Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("message", "Error interno del servidor"));
@@ -53,15 +59,18 @@ public class ControllerAuth {
     @Operation(summary = "Registro", description = "Registra un nuevo usuario", security = {})
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Registrado"),
-            @ApiResponse(responseCode = "400", description = "Usuario ya existe")
+            @ApiResponse(responseCode = "400", description = "Usuario ya existe"),
+            @ApiResponse(responseCode = "429", description = "Demasiados intentos desde la IP o servidor saturado")
     })
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request, HttpServletRequest http) {
         try {
-            authService.register(request);
+            authService.register(request, http.getRemoteAddr());
             return ResponseEntity.ok(Map.of("message", "Registrado exitosamente"));
         } catch (EntityExistsException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("message", "El usuario ya existe"));
+        } catch (DemasiadasPeticionesException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("message", "Error interno del servidor"));
@@ -0,0 +1,33 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.dashboard.ResumenResponse;
+import io.github.isaac.reservas.services.dashboard.ResumenDashboard;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/dashboard")
+@AllArgsConstructor
+@Tag(name = "Dashboard", description = "Datos agregados para el panel principal")
+@SecurityRequirement(name = "bearer-jwt")
+public class ControllerDashboard {
+
+    private final ResumenDashboard resumenDashboard;
+
+    @GetMapping("/resumen")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Resumen del panel", description = "Totales, reservas de hoy y de los próximos 14 días, uso por aula y por tipo de horario. Se sirve desde contadores en memoria que se reconcilian periódicamente con la base de datos")
+    @ApiResponses(@ApiResponse(responseCode = "200", description = "OK"))
+    public ResponseEntity<ResumenResponse> getResumen() {
+        return ResponseEntity.ok(resumenDashboard.getResumen());
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.evento.FiltroEventos;
+import io.github.isaac.reservas.services.sse.DifusionCambios;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/eventos")
+@AllArgsConstructor
+@Tag(name = "Eventos", description = "Stream de cambios en tiempo real")
+@SecurityRequirement(name = "bearer-jwt")
+public class ControllerEventos {
+
+    private final DifusionCambios difusionCambios;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Stream de cambios", description = "Server-Sent Events con las reservas creadas, modificadas y eliminadas y los cambios de aulas y horarios, filtrables por aula y rango de fechas. "
+            + "Eventos: conectado, reserva, aula, horario, reinicio (recargar los datos) y desbordado (el cliente no leía a tiempo y se cierra la conexión)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "429", description = "Demasiados suscriptores")
+    })
+    public SseEmitter suscribir(
+            @ParameterObject FiltroEventos filtro,
+            @Parameter(description = "Id del último evento recibido, para recibir los que se perdieron al reconectar")
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoId) {
+        return difusionCambios.suscribir(filtro, ultimoId);
+    }
+}
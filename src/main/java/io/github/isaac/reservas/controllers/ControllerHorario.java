@@ -3,7 +3,10 @@ package io.github.isaac.reservas.controllers;
 import io.github.isaac.reservas.dtos.horario.HorarioPostRequest;
 import io.github.isaac.reservas.dtos.horario.HorarioResponse;
 import io.github.isaac.reservas.dtos.horario.HorarioUpdateRequest;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
 import io.github.isaac.reservas.services.HorarioService;
+import io.github.isaac.reservas.services.version.Coleccion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,10 +15,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -28,13 +33,19 @@ import java.util.List;
 @SecurityRequirement(name = "bearer-jwt")
 public class ControllerHorario {
     private final HorarioService horarioService;
+    private final RespuestasCondicionales condicionales;
+    private final FormaRespuesta forma;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
-    @Operation(summary = "Listar horarios", description = "Obtiene el listado completo de horarios")
-    @ApiResponses({ @ApiResponse(responseCode = "200", description = "OK") })
-    public ResponseEntity<List<HorarioResponse>> findAll() {
-        return ResponseEntity.ok(horarioService.getHorarios());
+    @Operation(summary = "Listar horarios", description = "Obtiene el listado completo de horarios con su total de reservas y las proximas (fields y expand como en aulas)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos")
+    })
+    public ResponseEntity<List<HorarioResponse>> findAll(@ParameterObject CamposRespuesta campos, WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, HorarioResponse.class);
+        return condicionales.responder(request, Coleccion.HORARIOS, reservas, () -> ResponseEntity.ok(horarioService.getHorarios(reservas)));
     }
 
     @PostMapping
@@ -83,12 +94,16 @@ public class ControllerHorario {
     @Operation(summary = "Obtener horario", description = "Obtiene un horario por su ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Encontrado"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos"),
             @ApiResponse(responseCode = "404", description = "No encontrado")
     })
     public ResponseEntity<HorarioResponse> getHorario(
-            @Parameter(description = "ID del horario", required = true) @PathVariable("id") Long id) {
-        return horarioService.getHorario(id)
+            @Parameter(description = "ID del horario", required = true) @PathVariable("id") Long id,
+            @ParameterObject CamposRespuesta campos,
+            WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, HorarioResponse.class);
+        return condicionales.responder(request, Coleccion.HORARIOS, reservas, () -> horarioService.getHorario(id, reservas)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 }
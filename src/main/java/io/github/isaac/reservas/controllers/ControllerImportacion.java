@@ -0,0 +1,84 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.importacion.ImportacionResultado;
+import io.github.isaac.reservas.services.importacion.ImportacionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/importar")
+@AllArgsConstructor
+@Tag(name = "Importación", description = "Carga masiva de aulas, horarios y reservas desde ficheros CSV")
+@SecurityRequirement(name = "bearer-jwt")
+public class ControllerImportacion {
+
+    private final ImportacionService importacionService;
+
+    @PostMapping(value = "/aulas", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importar aulas", description = "CSV con las columnas nombre, capacidad y ordenadores (si/no). Las aulas con un nombre que ya existe se rechazan")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Fichero procesado, ver los errores por fila"),
+            @ApiResponse(responseCode = "400", description = "Fichero sin las columnas obligatorias o mal formado")
+    })
+    public ResponseEntity<ImportacionResultado> importarAulas(
+            @Parameter(description = "Fichero CSV (UTF-8, separado por comas o punto y coma)", required = true)
+            @RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (Reader origen = lector(archivo)) {
+            return ResponseEntity.ok(importacionService.importarAulas(origen));
+        }
+    }
+
+    @PostMapping(value = "/horarios", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importar horarios", description = "CSV con las columnas dia, tipo, inicio y fin (HH:mm) y sesion. No puede haber dos horarios con el mismo dia y sesion")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Fichero procesado, ver los errores por fila"),
+            @ApiResponse(responseCode = "400", description = "Fichero sin las columnas obligatorias o mal formado")
+    })
+    public ResponseEntity<ImportacionResultado> importarHorarios(
+            @Parameter(description = "Fichero CSV (UTF-8, separado por comas o punto y coma)", required = true)
+            @RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (Reader origen = lector(archivo)) {
+            return ResponseEntity.ok(importacionService.importarHorarios(origen));
+        }
+    }
+
+    @PostMapping(value = "/reservas", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importar reservas", description = "CSV con las columnas fecha, aula (nombre), sesion, usuario (email), motivo y asistentes. El horario se obtiene del dia de la fecha y la sesion. Se comprueban capacidad y solapamientos como en el alta en lote")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Fichero procesado, ver los errores por fila"),
+            @ApiResponse(responseCode = "400", description = "Fichero sin las columnas obligatorias o mal formado")
+    })
+    public ResponseEntity<ImportacionResultado> importarReservas(
+            @Parameter(description = "Fichero CSV (UTF-8, separado por comas o punto y coma)", required = true)
+            @RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (Reader origen = lector(archivo)) {
+            return ResponseEntity.ok(importacionService.importarReservas(origen));
+        }
+    }
+
+    private static Reader lector(MultipartFile archivo) throws IOException {
+        if (archivo.isEmpty()) {
+            throw new IllegalArgumentException("El fichero esta vacio");
+        }
+
+        return new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
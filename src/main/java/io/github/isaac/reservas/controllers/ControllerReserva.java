@@ -1,23 +1,39 @@
 package io.github.isaac.reservas.controllers;
 
+import io.github.isaac.reservas.dtos.reserva.ReservaBatchRequest;
+import io.github.isaac.reservas.dtos.reserva.ReservaBatchResultado;
+import io.github.isaac.reservas.dtos.reserva.ReservaFiltro;
+import io.github.isaac.reservas.dtos.reserva.ReservaPageResponse;
 import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
 import io.github.isaac.reservas.dtos.reserva.ReservaResponse;
 import io.github.isaac.reservas.dtos.reserva.ReservaUpdateRequest;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.enums.FormatoExportacion;
+import io.github.isaac.reservas.services.ReservaBatchService;
+import io.github.isaac.reservas.services.ReservaExportService;
 import io.github.isaac.reservas.services.ReservaService;
+import io.github.isaac.reservas.services.version.Coleccion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -28,13 +44,45 @@ import java.util.List;
 public class ControllerReserva {
 
     private final ReservaService reservaService;
+    private final ReservaBatchService reservaBatchService;
+    private final ReservaExportService reservaExportService;
+    private final RespuestasCondicionales condicionales;
+    private final FormaRespuesta forma;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
-    @Operation(summary = "Listar reservas", description = "Obtiene todas las reservas")
-    @ApiResponses(@ApiResponse(responseCode = "200", description = "OK"))
-    public ResponseEntity<List<ReservaResponse>> getReservas() {
-        return ResponseEntity.ok(reservaService.getReservas());
+    @Operation(summary = "Listar reservas", description = "Obtiene una pagina de reservas ordenada por fecha. Para la siguiente pagina se envia el siguienteCursor recibido. Con archivo=true incluye los meses archivados. Con fields se eligen los campos de cada reserva")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Filtro, cursor o fields no validos")
+    })
+    public ResponseEntity<ReservaPageResponse> getReservas(@Valid @ParameterObject ReservaFiltro filtro,
+                                                           @ParameterObject CamposRespuesta campos,
+                                                           WebRequest request) {
+        forma.validar(campos, ReservaResponse.class);
+        return condicionales.responder(request, Coleccion.RESERVAS, () -> ResponseEntity.ok(reservaService.getReservas(filtro)));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Exportar reservas", description = "Descarga las reservas del rango en CSV o NDJSON (un objeto JSON por linea) ordenadas por fecha. Las filas se envian a medida que se leen de la base de datos")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Formato o rango no valido")
+    })
+    public void exportReservas(
+            @Parameter(description = "csv o ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Fecha inicial incluida (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Fecha final incluida (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            HttpServletResponse response) throws IOException {
+        FormatoExportacion formato = FormatoExportacion.de(format);
+        reservaExportService.validar(desde, hasta);
+
+        response.setContentType(formato.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservas." + formato.getExtension() + "\"");
+
+        reservaExportService.exportar(formato, desde, hasta, response.getOutputStream());
     }
 
     @PostMapping
@@ -51,6 +99,17 @@ public class ControllerReserva {
                 .body(reservaService.addReserva(request));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Crear reservas en lote", description = "Valida todo el lote (referencias, capacidad y solapamientos con la base de datos y dentro del lote) y crea las reservas validas. Devuelve el resultado de cada elemento en el mismo orden")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lote procesado, ver el resultado de cada elemento"),
+            @ApiResponse(responseCode = "400", description = "Validación fallida")
+    })
+    public ResponseEntity<List<ReservaBatchResultado>> createReservas(@Valid @RequestBody ReservaBatchRequest request) {
+        return ResponseEntity.ok(reservaBatchService.addReservas(request.getReservas()));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
     @Operation(summary = "Actualizar reserva", description = "Actualiza parcialmente una reserva y vuelve a validar solapamientos y capacidad")
@@ -87,9 +146,12 @@ public class ControllerReserva {
             @ApiResponse(responseCode = "404", description = "No encontrada")
     })
     public ResponseEntity<ReservaResponse> getReserva(
-            @Parameter(description = "ID de la reserva", required = true) @PathVariable Long id) {
-        return reservaService.getReserva(id)
+            @Parameter(description = "ID de la reserva", required = true) @PathVariable Long id,
+            @ParameterObject CamposRespuesta campos,
+            WebRequest request) {
+        forma.validar(campos, ReservaResponse.class);
+        return condicionales.responder(request, Coleccion.RESERVAS, () -> reservaService.getReserva(id)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 }
@@ -0,0 +1,104 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.serie.SeriePostRequest;
+import io.github.isaac.reservas.dtos.serie.SerieResponse;
+import io.github.isaac.reservas.dtos.serie.SerieUpdateRequest;
+import io.github.isaac.reservas.services.SerieReservaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/series")
+@AllArgsConstructor
+@Tag(name = "Series", description = "Reservas periódicas que se repiten cada semana o cada varias semanas")
+@SecurityRequirement(name = "bearer-jwt")
+public class ControllerSerie {
+
+    private final SerieReservaService serieService;
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Crear serie", description = "Genera una reserva por cada ocurrencia de la serie. Si alguna ocurrencia solapa no se crea ninguna y se indican las fechas en conflicto")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Creada"),
+            @ApiResponse(responseCode = "400", description = "Validación/Regla de negocio fallida"),
+            @ApiResponse(responseCode = "404", description = "Alguna entidad referencial no encontrada")
+    })
+    public ResponseEntity<SerieResponse> createSerie(@Valid @RequestBody SeriePostRequest request) {
+        SerieResponse serie = serieService.addSerie(request);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .location(URI.create("/series/" + serie.getId()))
+                .body(serie);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Obtener serie", description = "Obtiene una serie con todas sus ocurrencias")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Encontrada"),
+            @ApiResponse(responseCode = "404", description = "No encontrada")
+    })
+    public ResponseEntity<SerieResponse> getSerie(
+            @Parameter(description = "ID de la serie", required = true) @PathVariable Long id) {
+        return serieService.getSerie(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Actualizar serie", description = "Actualiza motivo y asistentes de todas las ocurrencias desde hoy")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Actualizada"),
+            @ApiResponse(responseCode = "400", description = "Regla de negocio fallida"),
+            @ApiResponse(responseCode = "404", description = "No encontrada")
+    })
+    public ResponseEntity<SerieResponse> updateSerie(
+            @Parameter(description = "ID de la serie", required = true) @PathVariable Long id,
+            @Valid @RequestBody SerieUpdateRequest request) {
+        return ResponseEntity.ok(serieService.updateSerie(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Eliminar serie", description = "Elimina la serie y todas sus ocurrencias")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Eliminada"),
+            @ApiResponse(responseCode = "404", description = "No encontrada")
+    })
+    public ResponseEntity<Void> deleteSerie(
+            @Parameter(description = "ID de la serie", required = true) @PathVariable Long id) {
+        serieService.deleteSerie(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/ocurrencias/{fecha}")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Cancelar ocurrencia", description = "Elimina la reserva de una fecha y la añade como excepción de la serie")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Eliminada"),
+            @ApiResponse(responseCode = "404", description = "Serie u ocurrencia no encontrada")
+    })
+    public ResponseEntity<Void> deleteOcurrencia(
+            @Parameter(description = "ID de la serie", required = true) @PathVariable Long id,
+            @Parameter(description = "Fecha de la ocurrencia (yyyy-MM-dd)", required = true)
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        serieService.deleteOcurrencia(id, fecha);
+        return ResponseEntity.noContent().build();
+    }
+}
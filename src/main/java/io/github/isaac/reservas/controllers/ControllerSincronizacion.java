@@ -0,0 +1,46 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.sincronizacion.SincronizacionResponse;
+import io.github.isaac.reservas.services.sincronizacion.SincronizacionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sync")
+@AllArgsConstructor
+@Tag(name = "Sincronización", description = "Cambios incrementales para clientes con copia local")
+@SecurityRequirement(name = "bearer-jwt")
+public class ControllerSincronizacion {
+
+    private final SincronizacionService sincronizacionService;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMIN')")
+    @Operation(summary = "Cambios desde una versión", description = "Reservas, aulas, horarios y usuarios (solo administradores) creados o modificados desde since, y los eliminados. "
+            + "Se empieza con since=0 y se continúa con el cursor de cada respuesta; si hayMas es true se vuelve a pedir enseguida y si reinicio es true se descarta la copia local")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "since no válido")
+    })
+    public ResponseEntity<SincronizacionResponse> getCambios(
+            @Parameter(description = "Cursor devuelto por la llamada anterior, 0 para descargarlo todo")
+            @RequestParam(defaultValue = "0") long since,
+            Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(rol -> rol.getAuthority().equals("ROLE_ADMIN"));
+
+        return ResponseEntity.ok(sincronizacionService.cambios(since, admin));
+    }
+}
@@ -1,9 +1,14 @@
 package io.github.isaac.reservas.controllers;
 
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
 import io.github.isaac.reservas.dtos.usuario.UsuarioPostRequest;
 import io.github.isaac.reservas.dtos.usuario.UsuarioResponse;
 import io.github.isaac.reservas.dtos.usuario.UsuarioUpdateRequest;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse;
 import io.github.isaac.reservas.services.UsuarioService;
+import io.github.isaac.reservas.services.semana.SemanaService;
+import io.github.isaac.reservas.services.version.Coleccion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,12 +17,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -28,13 +37,20 @@ import java.util.List;
 public class ControllerUsuario {
 
     private UsuarioService usuarioService;
+    private SemanaService semanaService;
+    private RespuestasCondicionales condicionales;
+    private FormaRespuesta forma;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Listar usuarios", description = "Obtiene todos los usuarios")
-    @ApiResponses(@ApiResponse(responseCode = "200", description = "OK"))
-    public ResponseEntity<List<UsuarioResponse>> getUsuarios() {
-        return ResponseEntity.ok(usuarioService.getUsuarios());
+    @Operation(summary = "Listar usuarios", description = "Obtiene todos los usuarios con su total de reservas y las proximas (fields y expand como en aulas)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos")
+    })
+    public ResponseEntity<List<UsuarioResponse>> getUsuarios(@ParameterObject CamposRespuesta campos, WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, UsuarioResponse.class);
+        return condicionales.responder(request, Coleccion.USUARIOS, reservas, () -> ResponseEntity.ok(usuarioService.getUsuarios(reservas)));
     }
 
     @PostMapping
@@ -82,13 +98,34 @@ public class ControllerUsuario {
     @Operation(summary = "Obtener usuario", description = "Obtiene un usuario por su ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Encontrado"),
+            @ApiResponse(responseCode = "400", description = "fields o expand no validos"),
             @ApiResponse(responseCode = "404", description = "No encontrado")
     })
     public ResponseEntity<UsuarioResponse> getUsuario(
-            @Parameter(description = "ID del usuario", required = true) @PathVariable Long id) {
-        return usuarioService.getUsuario(id)
+            @Parameter(description = "ID del usuario", required = true) @PathVariable Long id,
+            @ParameterObject CamposRespuesta campos,
+            WebRequest request) {
+        ReservasAnidadas reservas = forma.reservas(campos, UsuarioResponse.class);
+        return condicionales.responder(request, Coleccion.USUARIOS, reservas, () -> usuarioService.getUsuario(id, reservas)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/{id}/semana")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('PROFESOR') and #id == principal.claims['userId'])")
+    @Operation(summary = "Semana del usuario", description = "Cuadricula de lunes a domingo de la semana de la fecha con las reservas del usuario en cada tramo horario. Un profesor solo puede consultar la suya")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag enviado"),
+            @ApiResponse(responseCode = "404", description = "No encontrado")
+    })
+    public ResponseEntity<SemanaResponse> getSemana(
+            @Parameter(description = "ID del usuario", required = true) @PathVariable Long id,
+            @Parameter(description = "Cualquier fecha de la semana (yyyy-MM-dd), por defecto hoy")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            WebRequest request) {
+        return condicionales.responder(request, Coleccion.RESERVAS,
+                () -> ResponseEntity.ok(semanaService.getSemanaUsuario(id, fecha != null ? fecha : LocalDate.now())));
     }
 
 }
@@ -0,0 +1,38 @@
+package io.github.isaac.reservas.controllers;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Set;
+
+// Aplica ?fields= al serializar: los DTOs con @JsonFilter(CamposRespuesta.FILTRO) solo escriben
+// los campos pedidos. Los objetos anidados y los envoltorios (paginas) no se filtran. Los
+// controladores validan antes los nombres con FormaRespuesta
+@RestControllerAdvice
+public class FiltroCampos extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue contenedor, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servlet)) {
+            return;
+        }
+
+        Set<String> campos = FormaRespuesta.campos(servlet.getServletRequest().getParameter("fields"));
+
+        if (campos != null) {
+            contenedor.setFilters(new SimpleFilterProvider()
+                    .addFilter(CamposRespuesta.FILTRO, SimpleBeanPropertyFilter.filterOutAllExcept(campos)));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ConReservas;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Interpreta fields y expand (CamposRespuesta). Los campos se validan contra el DTO y se filtran
+// al serializar (FiltroCampos), las reservas anidadas se traducen a lo que deben consultar los
+// servicios: sin expand el total y las proximas reservas.por-defecto, con expand hasta limit
+// (como maximo reservas.expansion.maximo) desde la fecha pedida
+@Component
+public class FormaRespuesta {
+    private static final Pattern EXPANSION = Pattern.compile("reservas(?:\\[([^\\]]*)])?");
+
+    private final int porDefecto;
+    private final int maximo;
+
+    public FormaRespuesta(
+            @Value("${reservas.expansion.por-defecto:3}") int porDefecto,
+            @Value("${reservas.expansion.maximo:100}") int maximo) {
+        this.porDefecto = porDefecto;
+        this.maximo = maximo;
+    }
+
+    // Campos pedidos o null si se piden todos. El id se incluye siempre
+    public static Set<String> campos(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        Set<String> campos = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(campo -> !campo.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        campos.add("id");
+        return campos;
+    }
+
+    // Para DTOs sin reservas anidadas (reservas): solo se admite fields
+    public void validar(CamposRespuesta parametros, Class<?> dto) {
+        validarCampos(campos(parametros.getFields()), dto);
+
+        if (parametros.getExpand() != null && !parametros.getExpand().isBlank()) {
+            throw new IllegalArgumentException("Este recurso no admite expand");
+        }
+    }
+
+    public ReservasAnidadas reservas(CamposRespuesta parametros, Class<? extends ConReservas> dto) {
+        Set<String> campos = campos(parametros.getFields());
+        validarCampos(campos, dto);
+
+        boolean contar = campos == null || campos.contains("totalReservas");
+        boolean listar = campos == null || campos.contains("reservas");
+        String expand = parametros.getExpand();
+
+        if (expand == null || expand.isBlank()) {
+            return new ReservasAnidadas(contar, listar ? porDefecto : 0, LocalDate.now());
+        }
+
+        Matcher matcher = EXPANSION.matcher(expand.trim());
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("expand solo admite reservas o reservas[limit=n,desde=yyyy-MM-dd]");
+        }
+
+        int limite = maximo;
+        LocalDate desde = LocalDate.now();
+
+        if (matcher.group(1) != null && !matcher.group(1).isBlank()) {
+            for (String opcion : matcher.group(1).split(",")) {
+                String[] partes = opcion.split("=", 2);
+                String valor = partes.length == 2 ? partes[1].trim() : "";
+
+                switch (partes[0].trim()) {
+                    case "limit" -> limite = limite(valor);
+                    case "desde" -> desde = fecha(valor);
+                    default -> throw new IllegalArgumentException("Opcion de expand desconocida: " + partes[0].trim());
+                }
+            }
+        }
+
+        // Con fields sin reservas la expansion no se devuelve y no se consulta
+        return new ReservasAnidadas(contar, listar ? limite : 0, desde);
+    }
+
+    private int limite(String valor) {
+        try {
+            int limite = Integer.parseInt(valor);
+
+            if (limite < 1 || limite > maximo) {
+                throw new IllegalArgumentException("limit debe estar entre 1 y " + maximo);
+            }
+
+            return limite;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit debe ser un numero entre 1 y " + maximo);
+        }
+    }
+
+    private static LocalDate fecha(String valor) {
+        try {
+            return LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("desde debe tener el formato yyyy-MM-dd");
+        }
+    }
+
+    private static void validarCampos(Set<String> campos, Class<?> dto) {
+        if (campos == null) {
+            return;
+        }
+
+        Set<String> validos = Arrays.stream(dto.getDeclaredFields())
+                .filter(campo -> !Modifier.isStatic(campo.getModifiers()))
+                .map(Field::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        for (String campo : campos) {
+            if (!validos.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido: " + campo + ". Campos validos: " + String.join(",", validos));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
+import io.github.isaac.reservas.services.version.Coleccion;
+import io.github.isaac.reservas.services.version.VersionesColecciones;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// GET condicionales con ETag: si el If-None-Match del cliente coincide con la version actual
+// de la coleccion se responde 304 con solo la consulta de versiones, sin leer ni serializar.
+// La version y el cuerpo se leen en la misma transaccion de solo lectura con REPEATABLE READ: los
+// dos salen de la misma foto de la misma base de datos (replica o primaria), asi el ETag nunca
+// acompana a un cuerpo mas antiguo o mas nuevo que el
+@Component
+public class RespuestasCondicionales {
+    // El navegador guarda la respuesta pero la revalida siempre (privada, el contenido depende del token)
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
+    private final VersionesColecciones versiones;
+    private final TransactionTemplate lectura;
+
+    public RespuestasCondicionales(VersionesColecciones versiones, PlatformTransactionManager transacciones) {
+        this.versiones = versiones;
+        this.lectura = new TransactionTemplate(transacciones);
+        this.lectura.setReadOnly(true);
+        this.lectura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public <T> ResponseEntity<T> responder(WebRequest request, Coleccion coleccion, Supplier<ResponseEntity<T>> respuesta) {
+        // Las transacciones de los servicios se unen a esta y leen con la misma foto que la version
+        return lectura.execute(estado -> responder(request, versiones.etag(coleccion), respuesta));
+    }
+
+    // Para aulas, horarios y usuarios con reservas anidadas: el ETag incluye la expansion resuelta,
+    // asi al cambiar de dia (desde por defecto) no se responde 304 con las reservas de ayer
+    public <T> ResponseEntity<T> responder(WebRequest request, Coleccion coleccion, ReservasAnidadas reservas,
+                                           Supplier<ResponseEntity<T>> respuesta) {
+        return lectura.execute(estado -> responder(request, versiones.etag(coleccion, reservas.variante()), respuesta));
+    }
+
+    private <T> ResponseEntity<T> responder(WebRequest request, String etag, Supplier<ResponseEntity<T>> respuesta) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(REVALIDAR)
+                    .build();
+        }
+
+        ResponseEntity<T> resultado = respuesta.get();
+
+        if (!resultado.getStatusCode().is2xxSuccessful()) {
+            return resultado;
+        }
+
+        return ResponseEntity.status(resultado.getStatusCode())
+                .headers(resultado.getHeaders())
+                .eTag(etag)
+                .cacheControl(REVALIDAR)
+                .body(resultado.getBody());
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.isaac.reservas.dtos.aula;
+
+// Candidata de la busqueda de aulas libres, sin las reservas del aula
+public record AulaDisponible(
+        Long id,
+        String nombre,
+        int capacidad,
+        boolean ordenadores
+) {
+}
@@ -0,0 +1,30 @@
+package io.github.isaac.reservas.dtos.aula;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Busqueda de aulas libres en un horario. Con hasta se buscan aulas libres en todas
+// las fechas del rango que caen en el dia de la semana del horario
+@Data
+public class AulaDisponibleFiltro {
+    @NotNull(message = "La fecha es obligatoria")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fecha;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+
+    @NotNull(message = "El horario es obligatorio")
+    @Min(value = 1, message = "ID debe ser mayor que cero")
+    private Long horarioId;
+
+    @Min(value = 1, message = "Debe haber al menos un asistente")
+    private int minCapacidad = 1;
+
+    // Nulo si da igual que tenga ordenadores
+    private Boolean ordenadores;
+}
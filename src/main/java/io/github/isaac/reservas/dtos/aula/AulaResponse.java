@@ -1,23 +1,22 @@
 package io.github.isaac.reservas.dtos.aula;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import io.github.isaac.reservas.dtos.reserva.ReservaAnidada;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ConReservas;
 import lombok.Data;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 @Data
-public class AulaResponse {
+@JsonFilter(CamposRespuesta.FILTRO)
+public class AulaResponse implements ConReservas {
     private Long id;
     private String nombre;
     private boolean ordenadores;
     private int capacidad;
-    private List<AulaReserva> reservas = new ArrayList<>();
+    private Long totalReservas;
 
-    @Data
-    public static class AulaReserva {
-        private LocalDate fecha;
-        private String motivo;
-        private int asistentes;
-    }
+    // Solo las proximas o las pedidas con expand, no todas
+    private List<ReservaAnidada> reservas;
 }
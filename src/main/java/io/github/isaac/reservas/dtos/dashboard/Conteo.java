@@ -0,0 +1,23 @@
+package io.github.isaac.reservas.dtos.dashboard;
+
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+
+// Agregados que calcula la base de datos para reconciliar los contadores del resumen
+public final class Conteo {
+    private Conteo() {
+    }
+
+    public record Total(Long reservas, Long asistentes) {
+    }
+
+    public record PorFecha(LocalDate fecha, Long reservas, Long asistentes) {
+    }
+
+    public record PorTipo(TipoHorario tipo, Long reservas, Long asistentes) {
+    }
+
+    public record PorAula(Long aulaId, String nombre, Long reservas, Long asistentes) {
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.isaac.reservas.dtos.dashboard;
+
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Resumen del panel: totales, reservas de hoy y de los proximos dias, uso por aula y por tipo
+// de horario. reconciliado indica la ultima vez que los contadores se comprobaron contra la base de datos
+public record ResumenResponse(
+        long totalReservas,
+        long totalAsistentes,
+        long totalAulas,
+        long totalHorarios,
+        long totalUsuarios,
+        Uso hoy,
+        List<Dia> proximosDias,
+        List<Aula> porAula,
+        Map<TipoHorario, Uso> porTipo,
+        Instant reconciliado
+) {
+    public record Uso(long reservas, long asistentes) {
+    }
+
+    public record Dia(LocalDate fecha, long reservas, long asistentes) {
+    }
+
+    public record Aula(Long id, String nombre, long reservas, long asistentes) {
+    }
+}
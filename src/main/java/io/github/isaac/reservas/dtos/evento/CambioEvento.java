@@ -0,0 +1,15 @@
+package io.github.isaac.reservas.dtos.evento;
+
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.events.TipoCambio;
+
+// Cambio que se envia a los suscriptores del stream. recurso es reserva, aula, horario o usuario;
+// en las reservas se incluye su estado (el anterior en las eliminaciones). El id es nulo en los
+// cambios que afectan a varias entidades (importaciones)
+public record CambioEvento(
+        String recurso,
+        TipoCambio tipo,
+        Long id,
+        ReservaSnapshot reserva
+) {
+}
@@ -0,0 +1,19 @@
+package io.github.isaac.reservas.dtos.evento;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filtro de una suscripcion al stream de cambios, los campos nulos no filtran.
+// Los cambios de aulas y horarios se envian siempre (con aulaId solo los de ese aula)
+@Data
+public class FiltroEventos {
+    private Long aulaId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+}
@@ -0,0 +1,14 @@
+package io.github.isaac.reservas.dtos.importacion;
+
+import java.util.List;
+
+// Informe de una importacion: filas leidas, filas importadas y el error de cada fila rechazada.
+// La fila es la linea del fichero (la cabecera es la linea 1)
+public record ImportacionResultado(
+        long filas,
+        long importadas,
+        List<ErrorFila> errores
+) {
+    public record ErrorFila(long fila, String error) {
+    }
+}
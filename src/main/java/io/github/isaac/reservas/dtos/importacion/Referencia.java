@@ -0,0 +1,5 @@
+package io.github.isaac.reservas.dtos.importacion;
+
+// Id de una entidad por su clave natural (nombre del aula, email del usuario)
+public record Referencia(String clave, Long id) {
+}
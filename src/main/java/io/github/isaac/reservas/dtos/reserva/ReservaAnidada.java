@@ -0,0 +1,7 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import java.time.LocalDate;
+
+// Reserva dentro de la respuesta de un aula, horario o usuario
+public record ReservaAnidada(Long id, LocalDate fecha, String motivo, int asistentes) {
+}
@@ -0,0 +1,15 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ReservaBatchRequest {
+    @NotEmpty(message = "Debe haber al menos una reserva")
+    @Size(max = 5000, message = "No se pueden enviar mas de 5000 reservas por lote")
+    private List<@Valid ReservaPostRequest> reservas;
+}
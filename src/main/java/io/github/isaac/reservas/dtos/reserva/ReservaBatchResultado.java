@@ -0,0 +1,24 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de cada elemento del lote en el mismo orden en el que se envio
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaBatchResultado {
+    private int indice;
+    private boolean creada;
+    private Long id;
+    private String error;
+
+    public static ReservaBatchResultado creada(int indice, Long id) {
+        return new ReservaBatchResultado(indice, true, id, null);
+    }
+
+    public static ReservaBatchResultado rechazada(int indice, String error) {
+        return new ReservaBatchResultado(indice, false, null, error);
+    }
+}
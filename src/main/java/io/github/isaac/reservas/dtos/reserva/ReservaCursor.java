@@ -0,0 +1,33 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Posicion de la ultima reserva devuelta, el listado se ordena por (fecha, id)
+// asi la siguiente pagina empieza justo despues sin usar OFFSET
+public record ReservaCursor(LocalDate fecha, Long id) {
+
+    public String codificar() {
+        String valor = fecha + "|" + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReservaCursor decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+
+            return new ReservaCursor(LocalDate.parse(partes[0]), Long.parseLong(partes[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("El cursor no es valido");
+        }
+    }
+}
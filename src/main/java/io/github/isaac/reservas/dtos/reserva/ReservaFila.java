@@ -0,0 +1,26 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Fila plana con los datos de ReservaResponse, se construye en la consulta con un
+// solo JOIN para no cargar las relaciones lazy de la entidad una a una
+public record ReservaFila(
+        Long id,
+        LocalDate fecha,
+        String motivo,
+        int asistentes,
+        Long aulaId,
+        String aulaNombre,
+        int aulaCapacidad,
+        boolean aulaOrdenadores,
+        Long horarioId,
+        LocalTime horarioInicio,
+        LocalTime horarioFin,
+        TipoHorario horarioTipo,
+        Long usuarioId,
+        String usuarioNombre
+) {
+}
@@ -0,0 +1,34 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import io.github.isaac.reservas.enums.TipoHorario;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filtros opcionales del listado de reservas, los campos nulos no filtran
+@Data
+public class ReservaFiltro {
+    private Long aulaId;
+    private Long usuarioId;
+    private Long horarioId;
+    private TipoHorario tipo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+
+    // Incluye los meses archivados. Recorre tambien el archivo, solo para consultas historicas
+    private boolean archivo;
+
+    // Token opaco devuelto en la pagina anterior (siguienteCursor)
+    private String cursor;
+
+    @Min(value = 1, message = "El tamaño minimo es 1")
+    @Max(value = 200, message = "El tamaño maximo es 200")
+    private int size = 50;
+}
@@ -0,0 +1,17 @@
+package io.github.isaac.reservas.dtos.reserva;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaPageResponse {
+    private List<ReservaResponse> reservas;
+
+    // Es null cuando no hay mas paginas
+    private String siguienteCursor;
+}
@@ -1,5 +1,7 @@
 package io.github.isaac.reservas.dtos.reserva;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
 import io.github.isaac.reservas.enums.TipoHorario;
 import lombok.Data;
 
@@ -7,6 +9,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@JsonFilter(CamposRespuesta.FILTRO)
 public class ReservaResponse {
     private Long id;
     private LocalDate fecha;
@@ -0,0 +1,19 @@
+package io.github.isaac.reservas.dtos.respuesta;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.Data;
+
+// Forma de la respuesta de los GET de aulas, horarios, usuarios y reservas:
+//   - fields: campos a devolver separados por comas (el id siempre se incluye), sin el parametro todos
+//   - expand: reservas anidadas, "reservas" o "reservas[limit=20,desde=2025-01-01]"
+@Data
+public class CamposRespuesta {
+    // Id del @JsonFilter de los DTOs que admiten fields
+    public static final String FILTRO = "campos";
+
+    @Parameter(description = "Campos a devolver separados por comas, por ejemplo id,nombre,totalReservas")
+    private String fields;
+
+    @Parameter(description = "Reservas anidadas: reservas o reservas[limit=20,desde=yyyy-MM-dd]. Sin expand solo se incluyen las proximas")
+    private String expand;
+}
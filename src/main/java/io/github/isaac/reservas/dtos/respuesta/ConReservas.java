@@ -0,0 +1,14 @@
+package io.github.isaac.reservas.dtos.respuesta;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaAnidada;
+
+import java.util.List;
+
+// Respuestas que incluyen el total y una parte de sus reservas (aulas, horarios y usuarios)
+public interface ConReservas {
+    Long getId();
+
+    void setTotalReservas(Long totalReservas);
+
+    void setReservas(List<ReservaAnidada> reservas);
+}
@@ -0,0 +1,16 @@
+package io.github.isaac.reservas.dtos.respuesta;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+// Reservas que se cargan dentro de un aula, horario o usuario: el total si contar y las limite
+// primeras desde la fecha indicada, con limite 0 ninguna. Tambien forma parte de la clave de las
+// caches de catalogos, por eso desde siempre es una fecha concreta
+public record ReservasAnidadas(boolean contar, int limite, LocalDate desde) {
+
+    // Parte del ETag que no sale de la URL: el limite y el desde por defecto (hoy) los resuelve el
+    // servidor. contar depende solo de fields. Sin reservas listadas la fecha no cambia la respuesta
+    public String variante() {
+        return limite > 0 ? "r" + limite + "d" + desde.format(DateTimeFormatter.BASIC_ISO_DATE) : "r0";
+    }
+}
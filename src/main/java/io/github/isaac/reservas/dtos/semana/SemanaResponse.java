@@ -0,0 +1,42 @@
+package io.github.isaac.reservas.dtos.semana;
+
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Cuadricula semanal (lunes a domingo) de un aula o un usuario: cada dia con sus tramos
+// horarios ordenados y las reservas de cada tramo
+public record SemanaResponse(
+        Long id,
+        LocalDate desde,
+        LocalDate hasta,
+        List<Dia> dias
+) {
+    public record Dia(DiaSemana dia, LocalDate fecha, List<Tramo> tramos) {
+    }
+
+    public record Tramo(
+            Long horarioId,
+            int sesion,
+            TipoHorario tipo,
+            LocalTime inicio,
+            LocalTime fin,
+            boolean ocupado,
+            List<ReservaTramo> reservas
+    ) {
+    }
+
+    public record ReservaTramo(
+            Long id,
+            Long aulaId,
+            String aulaNombre,
+            Long usuarioId,
+            String usuarioNombre,
+            String motivo,
+            int asistentes
+    ) {
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.isaac.reservas.dtos.serie;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.github.isaac.reservas.enums.Recurrencia;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class SeriePostRequest {
+    @NotNull(message = "Es obligatorio")
+    @Min(value = 1, message = "ID debe ser mayor que cero")
+    private Long usuarioId;
+
+    @NotNull(message = "Es obligatorio")
+    @Min(value = 1, message = "ID debe ser mayor que cero")
+    private Long horarioId;
+
+    @NotNull(message = "Es obligatorio")
+    @Min(value = 1, message = "ID debe ser mayor que cero")
+    private Long aulaId;
+
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    @FutureOrPresent(message = "La fecha de inicio debe ser hoy o una fecha futura")
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate fechaInicio;
+
+    @NotNull(message = "La fecha de fin es obligatoria")
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate fechaFin;
+
+    @NotNull(message = "Es obligatorio")
+    private Recurrencia recurrencia;
+
+    // Fechas que se saltan al generar las ocurrencias
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private List<LocalDate> excepciones = new ArrayList<>();
+
+    @NotBlank(message = "El motivo es obligatorio")
+    @Size(max = 255, message = "El motivo no puede tener más de 255 caracteres")
+    private String motivo;
+
+    @Min(value = 1, message = "Debe haber al menos un asistente")
+    private int asistentes;
+}
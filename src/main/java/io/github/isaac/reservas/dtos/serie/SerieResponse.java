@@ -0,0 +1,31 @@
+package io.github.isaac.reservas.dtos.serie;
+
+import io.github.isaac.reservas.enums.Recurrencia;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Data
+public class SerieResponse {
+    private Long id;
+    private Long aulaId;
+    private Long horarioId;
+    private Long usuarioId;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private Recurrencia recurrencia;
+    private Set<LocalDate> excepciones;
+    private String motivo;
+    private int asistentes;
+    private List<Ocurrencia> ocurrencias = new ArrayList<>();
+
+    // Cada ocurrencia es una reserva, se puede editar con PUT /reservas/{id}
+    @Data
+    public static class Ocurrencia {
+        private Long reservaId;
+        private LocalDate fecha;
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.isaac.reservas.dtos.serie;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+// Se aplica a todas las ocurrencias pendientes de la serie, los campos nulos se ignoran.
+// Para modificar una sola ocurrencia se usa PUT /reservas/{id}
+@Data
+public class SerieUpdateRequest {
+    @Size(max = 255, message = "El motivo no puede tener más de 255 caracteres")
+    private String motivo;
+
+    @Min(value = 1, message = "Debe haber al menos un asistente")
+    private Integer asistentes;
+}
@@ -0,0 +1,41 @@
+package io.github.isaac.reservas.dtos.sincronizacion;
+
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Cambios desde un cursor: filas creadas o modificadas (con su estado actual) y lapidas de las
+// eliminadas. cursor es el since de la siguiente llamada; con hayMas se debe pedir otra vez en
+// seguida. reinicio indica que el since ya no es valido y la respuesta parte de cero, el cliente
+// debe descartar su copia local
+public record SincronizacionResponse(
+        long cursor,
+        boolean hayMas,
+        boolean reinicio,
+        List<Reserva> reservas,
+        List<Aula> aulas,
+        List<Horario> horarios,
+        List<Usuario> usuarios,
+        List<Eliminacion> eliminaciones
+) {
+    public record Reserva(Long id, LocalDate fecha, String motivo, int asistentes, Long aulaId,
+                          Long horarioId, Long usuarioId, Long serieId, long version) {
+    }
+
+    public record Aula(Long id, String nombre, int capacidad, boolean ordenadores, long version) {
+    }
+
+    public record Horario(Long id, DiaSemana dia, TipoHorario tipo, LocalTime inicio, LocalTime fin,
+                          int session, long version) {
+    }
+
+    public record Usuario(Long id, String nombre, String email, String roles, boolean enabled, long version) {
+    }
+
+    // recurso: reserva, aula, horario o usuario
+    public record Eliminacion(String recurso, Long id, long version) {
+    }
+}
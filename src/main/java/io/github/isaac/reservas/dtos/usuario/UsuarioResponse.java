@@ -1,25 +1,23 @@
 package io.github.isaac.reservas.dtos.usuario;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import io.github.isaac.reservas.dtos.reserva.ReservaAnidada;
+import io.github.isaac.reservas.dtos.respuesta.CamposRespuesta;
+import io.github.isaac.reservas.dtos.respuesta.ConReservas;
 import lombok.Data;
 
-import java.time.LocalDate;
 import java.util.List;
 
 @Data
-public class UsuarioResponse {
+@JsonFilter(CamposRespuesta.FILTRO)
+public class UsuarioResponse implements ConReservas {
     private Long id;
     private String nombre;
     private String email;
     private Boolean enabled;
     private String roles;
-    private List<UsuarioReserva> reservas;
+    private Long totalReservas;
 
-    // TODO: Hacer que esta clase sea generica al metodo cuando se accede
-    // Se repite en aula, horario, reserva
-    @Data
-    public static class UsuarioReserva {
-        private LocalDate fecha;
-        private String motivo;
-        private int asistentes;
-    }
+    // Solo las proximas o las pedidas con expand, no todas
+    private List<ReservaAnidada> reservas;
 }
@@ -27,6 +27,10 @@ public class Aula {
 
     private boolean esOrdenadores;
 
+    // Transaccion que escribio la fila por ultima vez, la asigna un trigger (db/migration/V3__sincronizacion.sql)
+    @Column(name = "version_cambio", insertable = false, updatable = false)
+    private Long versionCambio;
+
     @OneToMany(mappedBy = "aula", cascade = CascadeType.REMOVE)
     @ToString.Exclude
     private List<Reserva> reservas = new ArrayList<>();
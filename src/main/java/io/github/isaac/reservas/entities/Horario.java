@@ -37,6 +37,10 @@ public class Horario {
 
     private int sessionDia;
 
+    // Transaccion que escribio la fila por ultima vez, la asigna un trigger (db/migration/V3__sincronizacion.sql)
+    @Column(name = "version_cambio", insertable = false, updatable = false)
+    private Long versionCambio;
+
     @OneToMany(mappedBy = "horario", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private List<Reserva> reservas;
 
@@ -26,6 +26,10 @@ public class Reserva {
 
     private int asistentes;
 
+    // Transaccion que escribio la fila por ultima vez, la asigna un trigger (db/migration/V3__sincronizacion.sql)
+    @Column(name = "version_cambio", insertable = false, updatable = false)
+    private Long versionCambio;
+
     @CreationTimestamp
     private LocalDate createAt;
 
@@ -44,4 +48,10 @@ public class Reserva {
     @ToString.Exclude
     private Usuario usuario;
 
+    // Solo se informa en las ocurrencias de una reserva periodica
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "serie_id")
+    @ToString.Exclude
+    private SerieReserva serie;
+
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package io.github.isaac.reservas.entities;
+
+import io.github.isaac.reservas.enums.Recurrencia;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+// Reserva que se repite cada N semanas en el mismo aula y horario. Cada ocurrencia
+// se guarda como una Reserva normal enlazada con la serie
+@Entity
+@Table(name = "series_reserva")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+@Getter
+@Setter
+public class SerieReserva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate fechaInicio;
+
+    private LocalDate fechaFin;
+
+    @Enumerated(EnumType.STRING)
+    private Recurrencia recurrencia;
+
+    private String motivo;
+
+    private int asistentes;
+
+    @CreationTimestamp
+    private LocalDate createAt;
+
+    // Fechas que no generan ocurrencia (festivos, ocurrencias canceladas...)
+    @ElementCollection
+    @CollectionTable(name = "series_reserva_excepciones", joinColumns = @JoinColumn(name = "serie_id"))
+    @Column(name = "fecha")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @Builder.Default
+    @ToString.Exclude
+    private Set<LocalDate> excepciones = new HashSet<>();
+
+    // Al eliminar el aula, horario o usuario la base de datos elimina tambien la serie
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "aula_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Aula aula;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "horario_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Horario horario;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Usuario usuario;
+}
@@ -34,7 +34,12 @@ public class Usuario implements UserDetails {
 
     private boolean enabled = true;
 
-    @OneToMany(mappedBy = "usuario",  fetch = FetchType.EAGER, cascade = CascadeType.REMOVE)
+    // Transaccion que escribio la fila por ultima vez, la asigna un trigger (db/migration/V3__sincronizacion.sql)
+    @Column(name = "version_cambio", insertable = false, updatable = false)
+    private Long versionCambio;
+
+    // Lazy: cargar un usuario (login, cada reserva que lo referencia) no trae todas sus reservas
+    @OneToMany(mappedBy = "usuario", cascade = CascadeType.REMOVE)
     private List<Reserva> reservas = new ArrayList<>();
 
 
@@ -1,5 +1,7 @@
 package io.github.isaac.reservas.enums;
 
+import java.time.DayOfWeek;
+
 public enum DiaSemana {
     LUNES,
     MARTES,
@@ -7,5 +9,10 @@ public enum DiaSemana {
     JUEVES,
     VIERNES,
     SABADO,
-    DOMINGO
+    DOMINGO;
+
+    // El orden de los valores coincide con DayOfWeek (lunes = 1)
+    public DayOfWeek toDayOfWeek() {
+        return DayOfWeek.of(ordinal() + 1);
+    }
 }
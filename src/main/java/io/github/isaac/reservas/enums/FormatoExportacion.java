@@ -0,0 +1,33 @@
+package io.github.isaac.reservas.enums;
+
+import java.util.Locale;
+
+public enum FormatoExportacion {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Acepta el formato en minusculas o mayusculas (?format=csv)
+    public static FormatoExportacion de(String formato) {
+        try {
+            return valueOf(formato.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato no soportado: " + formato + ", se admite csv o ndjson");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.isaac.reservas.enums;
+
+public enum Recurrencia {
+    SEMANAL(1),
+    QUINCENAL(2),
+    CADA_TRES_SEMANAS(3),
+    CADA_CUATRO_SEMANAS(4);
+
+    private final int semanas;
+
+    Recurrencia(int semanas) {
+        this.semanas = semanas;
+    }
+
+    public int getSemanas() {
+        return semanas;
+    }
+}
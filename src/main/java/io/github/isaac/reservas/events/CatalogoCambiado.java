@@ -0,0 +1,5 @@
+package io.github.isaac.reservas.events;
+
+// Cambios en aulas, horarios y usuarios. Las eliminaciones borran en cascada sus reservas
+public record CatalogoCambiado(Recurso recurso, Long id, TipoCambio tipo) {
+}
@@ -0,0 +1,17 @@
+package io.github.isaac.reservas.events;
+
+// Se publica desde ReservaService, anterior es null en la creacion y actual es null al eliminar
+public record ReservaCambiada(TipoCambio tipo, ReservaSnapshot anterior, ReservaSnapshot actual) {
+
+    public static ReservaCambiada creada(ReservaSnapshot actual) {
+        return new ReservaCambiada(TipoCambio.CREACION, null, actual);
+    }
+
+    public static ReservaCambiada actualizada(ReservaSnapshot anterior, ReservaSnapshot actual) {
+        return new ReservaCambiada(TipoCambio.ACTUALIZACION, anterior, actual);
+    }
+
+    public static ReservaCambiada eliminada(ReservaSnapshot anterior) {
+        return new ReservaCambiada(TipoCambio.ELIMINACION, anterior, null);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.isaac.reservas.events;
+
+import io.github.isaac.reservas.entities.Reserva;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Copia inmutable de los datos de una reserva, se usa en los eventos para que
+// los listeners no dependan de entidades que ya no estan en la sesion de hibernate
+public record ReservaSnapshot(
+        Long id,
+        Long aulaId,
+        Long horarioId,
+        Long usuarioId,
+        LocalDate fecha,
+        LocalTime inicio,
+        LocalTime fin,
+        int asistentes
+) {
+    public static ReservaSnapshot de(Reserva reserva) {
+        return new ReservaSnapshot(
+                reserva.getId(),
+                reserva.getAula().getId(),
+                reserva.getHorario().getId(),
+                reserva.getUsuario().getId(),
+                reserva.getFecha(),
+                reserva.getHorario().getInicio(),
+                reserva.getHorario().getFin(),
+                reserva.getAsistentes()
+        );
+    }
+}
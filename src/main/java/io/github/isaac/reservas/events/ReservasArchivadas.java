@@ -0,0 +1,8 @@
+package io.github.isaac.reservas.events;
+
+import java.time.LocalDate;
+
+// Meses de reservas pasados al archivo: dejan de contar en totales, cuadriculas y listados
+// normales. Solo se consultan con el listado de archivo (ReservaFiltro.archivo)
+public record ReservasArchivadas(LocalDate hasta, int meses) {
+}
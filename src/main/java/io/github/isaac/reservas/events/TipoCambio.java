@@ -0,0 +1,7 @@
+package io.github.isaac.reservas.events;
+
+public enum TipoCambio {
+    CREACION,
+    ACTUALIZACION,
+    ELIMINACION
+}
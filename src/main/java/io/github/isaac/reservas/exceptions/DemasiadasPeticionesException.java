@@ -0,0 +1,14 @@
+package io.github.isaac.reservas.exceptions;
+
+import lombok.Getter;
+
+// Peticion rechazada por superar un limite de uso, se responde 429 con Retry-After
+@Getter
+public class DemasiadasPeticionesException extends RuntimeException {
+    private final long reintentarEnSegundos;
+
+    public DemasiadasPeticionesException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+}
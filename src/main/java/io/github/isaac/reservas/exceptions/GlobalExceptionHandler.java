@@ -1,10 +1,15 @@
 package io.github.isaac.reservas.exceptions;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import io.github.isaac.reservas.services.metricas.MetricasReservas;
+import io.github.isaac.reservas.services.metricas.MetricasReservas.Motivo;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -12,12 +17,18 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    // SQLState de PostgreSQL para una violacion de restriccion de exclusion
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final MetricasReservas metricas;
 
     // Manejamos los error EntityExists
     @ExceptionHandler(EntityExistsException.class)
@@ -29,6 +40,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    // Limites de uso superados (login y registro)
+    @ExceptionHandler(DemasiadasPeticionesException.class)
+    public ResponseEntity<?> handleDemasiadasPeticiones(DemasiadasPeticionesException ex) {
+        Map<String, String> error = new HashMap<>();
+
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos()))
+                .body(error);
+    }
+
     // Manejamos errores NotEntityFount
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<?> handleEntityNotFoundException(EntityNotFoundException ex) {
@@ -81,6 +104,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // La restriccion de exclusion de reservas rechaza los solapamientos que llegan a la vez
+    // y pasan la comprobacion previa, se responde igual que esa comprobacion
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        if (!esSolapamiento(ex)) {
+            throw ex;
+        }
+
+        metricas.rechazo(Motivo.RESTRICCION);
+
+        Map<String, String> response = new HashMap<>();
+
+        response.put("message", "Hay solapamiento en el tramo");
+        response.put("status", "400");
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     // Manejamos validaciones del lado de jakarta
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handlerExceptionNotValid(MethodArgumentNotValidException ex) {
@@ -92,4 +133,15 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
+
+    // Tambien lo usa el alta masiva para separar los elementos que chocan con otra transaccion
+    public static boolean esSolapamiento(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException sql && EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
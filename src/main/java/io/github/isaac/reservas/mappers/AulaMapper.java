@@ -11,16 +11,26 @@ import org.mapstruct.*;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
 )
 public interface AulaMapper {
+    // Las reservas las completa ReservasAnidadasService, la coleccion de la entidad no se recorre
+    @Mapping(target = "totalReservas", ignore = true)
+    @Mapping(target = "reservas", ignore = true)
     @Mapping(target = "ordenadores", source = "esOrdenadores")
     AulaResponse toDto(Aula aula);
 
+    // Copia de una entrada de CatalogosBase para completar sus reservas sin tocar la compartida
+    @Mapping(target = "totalReservas", ignore = true)
+    @Mapping(target = "reservas", ignore = true)
+    AulaResponse copiar(AulaResponse aula);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "esOrdenadores", source = "ordenadores")
     Aula toEntity(AulaPostRequest request);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "esOrdenadores", source = "ordenadores")
     void updateAula(AulaUpdateRequest request, @MappingTarget Aula aula);
 }
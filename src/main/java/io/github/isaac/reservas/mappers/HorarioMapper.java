@@ -14,12 +14,20 @@ import org.mapstruct.NullValuePropertyMappingStrategy;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
 )
 public interface HorarioMapper {
+    @Mapping(target = "totalReservas", ignore = true)
+    @Mapping(target = "reservas", ignore = true)
     @Mapping(target = "dia", source = "diaSemana")
     @Mapping(target = "session", source = "sessionDia")
     HorarioResponse toDto(Horario horario);
 
+    // Copia de una entrada de CatalogosBase para completar sus reservas sin tocar la compartida
+    @Mapping(target = "totalReservas", ignore = true)
+    @Mapping(target = "reservas", ignore = true)
+    HorarioResponse copiar(HorarioResponse horario);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "diaSemana", source = "dia")
     @Mapping(target = "sessionDia", source = "session")
     Horario toEntity(HorarioPostRequest request);
@@ -27,6 +35,7 @@ public interface HorarioMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "diaSemana", source = "dia")
     @Mapping(target = "sessionDia", source = "session")
     void updateHorarioProps(HorarioUpdateRequest request, @MappingTarget Horario horario);
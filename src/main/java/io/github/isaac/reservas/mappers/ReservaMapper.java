@@ -1,5 +1,6 @@
 package io.github.isaac.reservas.mappers;
 
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
 import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
 import io.github.isaac.reservas.dtos.reserva.ReservaResponse;
 import io.github.isaac.reservas.dtos.reserva.ReservaUpdateRequest;
@@ -17,11 +18,25 @@ public interface ReservaMapper {
     @Mapping(source = "aula.esOrdenadores", target = "aula.ordenadores")
     ReservaResponse toDto(Reserva reserva);
 
+    @Mapping(target = "aula.id", source = "aulaId")
+    @Mapping(target = "aula.nombre", source = "aulaNombre")
+    @Mapping(target = "aula.capacidad", source = "aulaCapacidad")
+    @Mapping(target = "aula.ordenadores", source = "aulaOrdenadores")
+    @Mapping(target = "horario.id", source = "horarioId")
+    @Mapping(target = "horario.inicio", source = "horarioInicio")
+    @Mapping(target = "horario.fin", source = "horarioFin")
+    @Mapping(target = "horario.tipo", source = "horarioTipo")
+    @Mapping(target = "usuario.id", source = "usuarioId")
+    @Mapping(target = "usuario.nombre", source = "usuarioNombre")
+    ReservaResponse toDto(ReservaFila fila);
+
     @Mapping(target = "createAt", ignore = true)    // Este se autogenera en la base de datos
     @Mapping(target = "usuario", ignore = true)     // Se establece la relacción en el servicio
     @Mapping(target = "horario", ignore = true)     // Se establece la relacción en el servicio
     @Mapping(target = "aula", ignore = true)        // Se establece la relacción en el servicio
     @Mapping(target = "id", ignore = true)          // Se genera en la base de datos
+    @Mapping(target = "serie", ignore = true)       // Solo la asigna el servicio de series
+    @Mapping(target = "versionCambio", ignore = true)
     Reserva createReservaEntity(ReservaPostRequest request);
 
     @Mapping(target = "createAt", ignore = true)
@@ -29,5 +44,7 @@ public interface ReservaMapper {
     @Mapping(target = "horario", ignore = true)
     @Mapping(target = "aula", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "serie", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     void updateReserva(ReservaUpdateRequest request, @MappingTarget Reserva reserva);
 }
@@ -0,0 +1,44 @@
+package io.github.isaac.reservas.mappers;
+
+import io.github.isaac.reservas.dtos.serie.SeriePostRequest;
+import io.github.isaac.reservas.dtos.serie.SerieResponse;
+import io.github.isaac.reservas.dtos.serie.SerieUpdateRequest;
+import io.github.isaac.reservas.entities.SerieReserva;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+
+@Mapper(
+        componentModel = "spring",
+        nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
+)
+public interface SerieMapper {
+    @Mapping(target = "aulaId", source = "aula.id")
+    @Mapping(target = "horarioId", source = "horario.id")
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    @Mapping(target = "ocurrencias", ignore = true)     // Se rellenan en el servicio
+    SerieResponse toDto(SerieReserva serie);
+
+    @Mapping(target = "reservaId", source = "id")
+    SerieResponse.Ocurrencia toOcurrencia(ReservaSnapshot reserva);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createAt", ignore = true)
+    @Mapping(target = "aula", ignore = true)            // Se establece la relacción en el servicio
+    @Mapping(target = "horario", ignore = true)         // Se establece la relacción en el servicio
+    @Mapping(target = "usuario", ignore = true)         // Se establece la relacción en el servicio
+    SerieReserva toEntity(SeriePostRequest request);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createAt", ignore = true)
+    @Mapping(target = "fechaInicio", ignore = true)
+    @Mapping(target = "fechaFin", ignore = true)
+    @Mapping(target = "recurrencia", ignore = true)
+    @Mapping(target = "excepciones", ignore = true)
+    @Mapping(target = "aula", ignore = true)
+    @Mapping(target = "horario", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    void updateSerie(SerieUpdateRequest request, @MappingTarget SerieReserva serie);
+}
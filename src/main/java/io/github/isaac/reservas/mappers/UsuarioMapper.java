@@ -14,16 +14,20 @@ import org.mapstruct.NullValuePropertyMappingStrategy;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
 )
 public interface UsuarioMapper {
+    @Mapping(target = "totalReservas", ignore = true)
+    @Mapping(target = "reservas", ignore = true)
     UsuarioResponse toDto(Usuario usuario);
 
     @Mapping(target = "roles", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "enabled", ignore = true)
     Usuario toEntity(UsuarioPostRequest request);
 
     @Mapping(target = "roles", ignore = true)
     @Mapping(target = "reservas", ignore = true)
+    @Mapping(target = "versionCambio", ignore = true)
     @Mapping(target = "id", ignore = true)
     void updateUsuarioProps(UsuarioUpdateRequest request, @MappingTarget Usuario usuario);
 
@@ -0,0 +1,47 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.dtos.aula.AulaPostRequest;
+import io.github.isaac.reservas.dtos.horario.HorarioPostRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Time;
+import java.util.List;
+
+// Altas masivas de aulas y horarios con INSERT agrupados (importaciones)
+@Repository
+@RequiredArgsConstructor
+public class CatalogoJdbcRepository {
+    private static final int TAMANO_LOTE = 500;
+
+    private final JdbcTemplate jdbc;
+
+    public void insertarAulas(List<AulaPostRequest> aulas) {
+        jdbc.batchUpdate(
+                "INSERT INTO aulas (nombre, capacidad, es_ordenadores) VALUES (?, ?, ?)",
+                aulas,
+                TAMANO_LOTE,
+                (ps, aula) -> {
+                    ps.setString(1, aula.getNombre());
+                    ps.setInt(2, aula.getCapacidad());
+                    ps.setBoolean(3, aula.getOrdenadores());
+                }
+        );
+    }
+
+    public void insertarHorarios(List<HorarioPostRequest> horarios) {
+        jdbc.batchUpdate(
+                "INSERT INTO horarios (dia_semana, tipo, inicio, fin, session_dia) VALUES (?, ?, ?, ?, ?)",
+                horarios,
+                TAMANO_LOTE,
+                (ps, horario) -> {
+                    ps.setString(1, horario.getDia().name());
+                    ps.setString(2, horario.getTipo().name());
+                    ps.setTime(3, Time.valueOf(horario.getInicio()));
+                    ps.setTime(4, Time.valueOf(horario.getFin()));
+                    ps.setInt(5, horario.getSession());
+                }
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.isaac.reservas.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Mantenimiento de las particiones mensuales de reservas con las funciones de
+// db/migration/V6__reservas_particionadas.sql. Se debe llamar dentro de una transaccion
+@Repository
+@RequiredArgsConstructor
+public class ParticionesJdbcRepository {
+    // Clave del bloqueo consultivo que evita que dos instancias mantengan las particiones a la vez
+    private static final long BLOQUEO = 0x7265736572766173L;
+
+    private final JdbcTemplate jdbc;
+
+    // Bloqueo hasta el final de la transaccion, false si otra instancia ya lo tiene
+    public boolean bloquear() {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, BLOQUEO));
+    }
+
+    // ATTACH y DETACH esperan a las transacciones que usan la tabla: mejor fallar y reintentar en
+    // la siguiente ejecucion que dejar en cola a todas las peticiones detras del bloqueo
+    public void limitarEspera(Duration espera) {
+        jdbc.execute("SET LOCAL lock_timeout = '" + espera.toMillis() + "ms'");
+    }
+
+    public boolean crearParticion(LocalDate mes) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT reservas_crear_particion(?)", Boolean.class, mes));
+    }
+
+    // DETACH no dispara los triggers de reservas: el cambio de version de la coleccion se
+    // registra aqui, en la misma transaccion
+    public int archivarHasta(LocalDate limite) {
+        Integer archivadas = jdbc.queryForObject("SELECT reservas_archivar_particiones(?)", Integer.class, limite);
+
+        if (archivadas == null || archivadas == 0) {
+            return 0;
+        }
+
+        jdbc.execute("SELECT colecciones_registrar_cambio('RESERVAS')");
+        return archivadas;
+    }
+}
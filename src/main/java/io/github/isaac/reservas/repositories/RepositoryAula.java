@@ -1,9 +1,17 @@
 package io.github.isaac.reservas.repositories;
 
+import io.github.isaac.reservas.dtos.aula.AulaDisponible;
+import io.github.isaac.reservas.dtos.dashboard.Conteo;
+import io.github.isaac.reservas.dtos.importacion.Referencia;
 import io.github.isaac.reservas.entities.Aula;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface RepositoryAula extends JpaRepository<Aula, Long> {
@@ -17,4 +25,48 @@ public interface RepositoryAula extends JpaRepository<Aula, Long> {
     // Si quieres permitir cualquier valor de ordenadores:
     List<Aula> findByCapacidadGreaterThanAndEsOrdenadores(Integer capacidad, Boolean ordenadores);
 
+    // Uso de cada aula (tambien las que no tienen reservas) para el resumen del panel
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.dashboard.Conteo$PorAula(a.id, a.nombre, COUNT(r), COALESCE(SUM(r.asistentes), 0L))
+        FROM Aula a
+        LEFT JOIN a.reservas r
+        GROUP BY a.id, a.nombre
+        """)
+    List<Conteo.PorAula> contarPorAula();
+
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.importacion.Referencia(a.nombre, a.id)
+        FROM Aula a
+        WHERE a.nombre IN :nombres
+        """)
+    List<Referencia> findReferenciasByNombre(@Param("nombres") Collection<String> nombres);
+
+    // Aulas sin ninguna reserva que solape el tramo en alguna de las fechas (anti-join con NOT EXISTS).
+    // Se ordenan por capacidad para devolver primero las que mejor se ajustan a los asistentes
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.aula.AulaDisponible(
+            a.id, a.nombre, a.capacidad, a.esOrdenadores
+        )
+        FROM Aula a
+        WHERE a.capacidad >= :minCapacidad
+          AND (:ordenadores IS NULL OR a.esOrdenadores = :ordenadores)
+          AND NOT EXISTS (
+              SELECT 1
+              FROM Reserva r
+              JOIN r.horario h
+              WHERE r.aula = a
+                AND r.fecha IN :fechas
+                AND h.inicio < :fin
+                AND h.fin > :inicio
+          )
+        ORDER BY a.capacidad ASC, a.id ASC
+        """)
+    List<AulaDisponible> findDisponibles(
+            @Param("fechas") Collection<LocalDate> fechas,
+            @Param("inicio") LocalTime inicio,
+            @Param("fin") LocalTime fin,
+            @Param("minCapacidad") int minCapacidad,
+            @Param("ordenadores") Boolean ordenadores
+    );
+
 }
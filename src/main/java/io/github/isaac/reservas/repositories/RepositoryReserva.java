@@ -1,8 +1,11 @@
 package io.github.isaac.reservas.repositories;
 
+import io.github.isaac.reservas.dtos.dashboard.Conteo;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
 import io.github.isaac.reservas.entities.Aula;
 import io.github.isaac.reservas.entities.Horario;
 import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.events.ReservaSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -11,9 +14,12 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface RepositoryReserva extends JpaRepository<Reserva, Long> {
+public interface RepositoryReserva extends JpaRepository<Reserva, Long>, RepositoryReservaConsultas {
     @Query("""
         SELECT COUNT(r) > 0
         FROM Reserva r
@@ -23,12 +29,135 @@ public interface RepositoryReserva extends JpaRepository<Reserva, Long> {
                r.horario.inicio < :horaFin
            AND r.horario.fin > :horaInicio
           )
+          AND (:excluirId IS NULL OR r.id <> :excluirId)
         """)
     boolean existsSolapamiento(
             @Param("aulaId") Long aulaId,
             @Param("fecha") LocalDate fecha,
             @Param("horaInicio") LocalTime horaInicio,
-            @Param("horaFin") LocalTime horaFin
+            @Param("horaFin") LocalTime horaFin,
+            @Param("excluirId") Long excluirId
     );
 
+    // Carga del indice de ocupacion en memoria
+    @Query("""
+        SELECT new io.github.isaac.reservas.events.ReservaSnapshot(
+            r.id, r.aula.id, r.horario.id, r.usuario.id, r.fecha, h.inicio, h.fin, r.asistentes
+        )
+        FROM Reserva r
+        JOIN r.horario h
+        WHERE r.fecha >= :desde
+        """)
+    List<ReservaSnapshot> findSnapshotsDesde(@Param("desde") LocalDate desde);
+
+    // Ocupacion de varias aulas en un rango de fechas, para validar lotes en una sola consulta
+    @Query("""
+        SELECT new io.github.isaac.reservas.events.ReservaSnapshot(
+            r.id, r.aula.id, r.horario.id, r.usuario.id, r.fecha, h.inicio, h.fin, r.asistentes
+        )
+        FROM Reserva r
+        JOIN r.horario h
+        WHERE r.aula.id IN :aulaIds
+          AND r.fecha BETWEEN :desde AND :hasta
+        """)
+    List<ReservaSnapshot> findSnapshotsEnRango(
+            @Param("aulaIds") Collection<Long> aulaIds,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta
+    );
+
+    // Ocurrencias de una reserva periodica
+    @Query("""
+        SELECT new io.github.isaac.reservas.events.ReservaSnapshot(
+            r.id, r.aula.id, r.horario.id, r.usuario.id, r.fecha, h.inicio, h.fin, r.asistentes
+        )
+        FROM Reserva r
+        JOIN r.horario h
+        WHERE r.serie.id = :serieId
+        ORDER BY r.fecha ASC
+        """)
+    List<ReservaSnapshot> findSnapshotsBySerie(@Param("serieId") Long serieId);
+
+    @Query("SELECT r FROM Reserva r WHERE r.serie.id = :serieId AND r.fecha = :fecha")
+    Optional<Reserva> findBySerieAndFecha(@Param("serieId") Long serieId, @Param("fecha") LocalDate fecha);
+
+    @Modifying
+    @Query("DELETE FROM Reserva r WHERE r.serie.id = :serieId")
+    int deleteBySerie(@Param("serieId") Long serieId);
+
+    // Los valores nulos mantienen el dato actual de cada ocurrencia
+    @Modifying
+    @Query("""
+        UPDATE Reserva r
+        SET r.motivo = COALESCE(:motivo, r.motivo),
+            r.asistentes = COALESCE(:asistentes, r.asistentes)
+        WHERE r.serie.id = :serieId
+          AND r.fecha >= :desde
+        """)
+    int actualizarSerie(
+            @Param("serieId") Long serieId,
+            @Param("desde") LocalDate desde,
+            @Param("motivo") String motivo,
+            @Param("asistentes") Integer asistentes
+    );
+
+    // Agregados para reconciliar los contadores del resumen del panel
+    @Query("SELECT new io.github.isaac.reservas.dtos.dashboard.Conteo$Total(COUNT(r), COALESCE(SUM(r.asistentes), 0L)) FROM Reserva r")
+    Conteo.Total contarTotal();
+
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.dashboard.Conteo$PorFecha(r.fecha, COUNT(r), COALESCE(SUM(r.asistentes), 0L))
+        FROM Reserva r
+        WHERE r.fecha >= :desde
+        GROUP BY r.fecha
+        """)
+    List<Conteo.PorFecha> contarPorFecha(@Param("desde") LocalDate desde);
+
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.dashboard.Conteo$PorTipo(h.tipo, COUNT(r), COALESCE(SUM(r.asistentes), 0L))
+        FROM Reserva r
+        JOIN r.horario h
+        GROUP BY h.tipo
+        """)
+    List<Conteo.PorTipo> contarPorTipo();
+
+    // Reservas de un aula o de un usuario en un rango corto (la semana del calendario)
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.reserva.ReservaFila(
+            r.id, r.fecha, r.motivo, r.asistentes,
+            a.id, a.nombre, a.capacidad, a.esOrdenadores,
+            h.id, h.inicio, h.fin, h.tipo,
+            u.id, u.nombre
+        )
+        FROM Reserva r
+        JOIN r.aula a
+        JOIN r.horario h
+        JOIN r.usuario u
+        WHERE (:aulaId IS NULL OR a.id = :aulaId)
+          AND (:usuarioId IS NULL OR u.id = :usuarioId)
+          AND r.fecha BETWEEN :desde AND :hasta
+        ORDER BY r.fecha ASC, h.inicio ASC, r.id ASC
+        """)
+    List<ReservaFila> findFilasEnRango(
+            @Param("aulaId") Long aulaId,
+            @Param("usuarioId") Long usuarioId,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta
+    );
+
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.reserva.ReservaFila(
+            r.id, r.fecha, r.motivo, r.asistentes,
+            a.id, a.nombre, a.capacidad, a.esOrdenadores,
+            h.id, h.inicio, h.fin, h.tipo,
+            u.id, u.nombre
+        )
+        FROM Reserva r
+        JOIN r.aula a
+        JOIN r.horario h
+        JOIN r.usuario u
+        WHERE r.id = :id
+        """)
+    Optional<ReservaFila> findFilaById(@Param("id") Long id);
+
 }
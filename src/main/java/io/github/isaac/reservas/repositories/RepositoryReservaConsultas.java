@@ -0,0 +1,26 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.enums.TipoHorario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Consultas de RepositoryReserva que se construyen segun los filtros presentes
+public interface RepositoryReservaConsultas {
+
+    // Pagina de reservas ordenada por (fecha, id) a partir del cursor. Los filtros nulos no
+    // filtran y con archivo se incluyen los meses archivados
+    List<ReservaFila> buscarPagina(
+            Long aulaId,
+            Long usuarioId,
+            Long horarioId,
+            TipoHorario tipo,
+            LocalDate desde,
+            LocalDate hasta,
+            LocalDate cursorFecha,
+            Long cursorId,
+            boolean archivo,
+            int limite
+    );
+}
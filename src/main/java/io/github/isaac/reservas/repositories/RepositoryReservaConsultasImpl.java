@@ -0,0 +1,109 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.enums.TipoHorario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// SQL nativo para poder comparar filas: (fecha, id) > (cursor) es un limite del recorrido del
+// indice reservas_fecha_id y cada pagina cuesta lo mismo sin importar lo profunda que sea.
+// Solo se anaden las condiciones de los filtros presentes, un ":filtro IS NULL OR ..." impide
+// usar los indices en el plan generico de la sentencia preparada
+public class RepositoryReservaConsultasImpl implements RepositoryReservaConsultas {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ReservaFila> buscarPagina(Long aulaId, Long usuarioId, Long horarioId, TipoHorario tipo,
+                                          LocalDate desde, LocalDate hasta, LocalDate cursorFecha, Long cursorId,
+                                          boolean archivo, int limite) {
+        // Las reservas archivadas (vista reservas_historico) no tienen claves ajenas y pueden
+        // apuntar a aulas, horarios o usuarios ya borrados: JOIN externos y los ids de la reserva
+        String union = archivo ? "LEFT JOIN" : "JOIN";
+        StringBuilder sql = new StringBuilder("""
+                SELECT r.id, r.fecha, r.motivo, r.asistentes,
+                       r.aula_id, a.nombre AS aula_nombre, a.capacidad, a.es_ordenadores,
+                       r.horario_id, h.inicio, h.fin, h.tipo,
+                       r.usuario_id, u.nombre AS usuario_nombre
+                FROM %s r
+                %s aulas a ON a.id = r.aula_id
+                %s horarios h ON h.id = r.horario_id
+                %s usuarios u ON u.id = r.usuario_id
+                WHERE TRUE
+                """.formatted(archivo ? "reservas_historico" : "reservas", union, union, union));
+        Map<String, Object> parametros = new LinkedHashMap<>();
+
+        filtrar(sql, parametros, "r.aula_id = :aulaId", "aulaId", aulaId);
+        filtrar(sql, parametros, "r.usuario_id = :usuarioId", "usuarioId", usuarioId);
+        filtrar(sql, parametros, "r.horario_id = :horarioId", "horarioId", horarioId);
+        filtrar(sql, parametros, "h.tipo = :tipo", "tipo", tipo != null ? tipo.name() : null);
+        filtrar(sql, parametros, "r.fecha >= :desde", "desde", desde);
+        filtrar(sql, parametros, "r.fecha <= :hasta", "hasta", hasta);
+
+        if (cursorFecha != null) {
+            sql.append("  AND (r.fecha, r.id) > (:cursorFecha, :cursorId)\n");
+            parametros.put("cursorFecha", cursorFecha);
+            parametros.put("cursorId", cursorId);
+        }
+
+        sql.append("ORDER BY r.fecha, r.id\nLIMIT :limite");
+        parametros.put("limite", limite);
+
+        NativeQuery<Object[]> consulta = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("fecha", LocalDate.class)
+                .addScalar("motivo", String.class)
+                .addScalar("asistentes", Integer.class)
+                .addScalar("aula_id", Long.class)
+                .addScalar("aula_nombre", String.class)
+                .addScalar("capacidad", Integer.class)
+                .addScalar("es_ordenadores", Boolean.class)
+                .addScalar("horario_id", Long.class)
+                .addScalar("inicio", LocalTime.class)
+                .addScalar("fin", LocalTime.class)
+                .addScalar("tipo", String.class)
+                .addScalar("usuario_id", Long.class)
+                .addScalar("usuario_nombre", String.class);
+
+        parametros.forEach(consulta::setParameter);
+
+        return consulta.getResultList().stream()
+                .map(RepositoryReservaConsultasImpl::fila)
+                .toList();
+    }
+
+    private static void filtrar(StringBuilder sql, Map<String, Object> parametros, String condicion, String nombre, Object valor) {
+        if (valor != null) {
+            sql.append("  AND ").append(condicion).append('\n');
+            parametros.put(nombre, valor);
+        }
+    }
+
+    private static ReservaFila fila(Object[] columnas) {
+        return new ReservaFila(
+                (Long) columnas[0],
+                (LocalDate) columnas[1],
+                (String) columnas[2],
+                (Integer) columnas[3],
+                (Long) columnas[4],
+                (String) columnas[5],
+                columnas[6] != null ? (Integer) columnas[6] : 0,
+                Boolean.TRUE.equals(columnas[7]),
+                (Long) columnas[8],
+                (LocalTime) columnas[9],
+                (LocalTime) columnas[10],
+                columnas[11] != null ? TipoHorario.valueOf((String) columnas[11]) : null,
+                (Long) columnas[12],
+                (String) columnas[13]
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.entities.SerieReserva;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RepositorySerieReserva extends JpaRepository<SerieReserva, Long> {
+}
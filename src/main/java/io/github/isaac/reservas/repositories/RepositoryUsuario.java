@@ -1,10 +1,16 @@
 package io.github.isaac.reservas.repositories;
 
+import io.github.isaac.reservas.dtos.importacion.Referencia;
 import io.github.isaac.reservas.entities.Reserva;
 import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.services.auth.UsuarioPrincipal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +18,32 @@ import java.util.Optional;
 public interface RepositoryUsuario extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
     Boolean existsByEmail(String email);
+
+    // Solo las columnas necesarias para autenticar, sin cargar las reservas del usuario
+    @Query("""
+        SELECT new io.github.isaac.reservas.services.auth.UsuarioPrincipal(
+            u.id, u.email, u.password, u.roles, u.enabled
+        )
+        FROM Usuario u
+        WHERE u.email = :email
+        """)
+    Optional<UsuarioPrincipal> findPrincipalByEmail(@Param("email") String email);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.id IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Ids por email en una sola consulta, sin cargar ni gestionar las entidades de la importacion
+    @Query("""
+        SELECT new io.github.isaac.reservas.dtos.importacion.Referencia(u.email, u.id)
+        FROM Usuario u
+        WHERE u.email IN :emails
+        """)
+    List<Referencia> findReferenciasByEmail(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.email FROM Usuario u WHERE u.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Usuario u SET u.password = :password WHERE u.id = :id")
+    int actualizarPassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,211 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaAnidada;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.enums.TipoHorario;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.exceptions.GlobalExceptionHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Operaciones masivas sobre reservas con JDBC directo, sin pasar por el contexto de persistencia.
+// Las entidades usan IDENTITY y hibernate no puede agrupar esos INSERT, aqui si se agrupan
+@Repository
+@RequiredArgsConstructor
+public class ReservaJdbcRepository {
+    private static final int TAMANO_LOTE = 500;
+
+    // Filas que trae el driver en cada viaje al recorrer un cursor
+    private static final int TAMANO_CURSOR = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    // Reserva un bloque de ids de la secuencia de la tabla en una sola consulta
+    public List<Long> reservarIds(int cantidad) {
+        return jdbc.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('reservas', 'id')) FROM generate_series(1, ?)",
+                Long.class,
+                cantidad
+        );
+    }
+
+    public void insertar(List<NuevaReserva> nuevas) {
+        jdbc.batchUpdate("""
+                INSERT INTO reservas (id, fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id, serie_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """,
+                nuevas,
+                TAMANO_LOTE,
+                (ps, reserva) -> {
+                    ps.setLong(1, reserva.id());
+                    ps.setDate(2, Date.valueOf(reserva.fecha()));
+                    ps.setString(3, reserva.motivo());
+                    ps.setInt(4, reserva.asistentes());
+                    ps.setDate(5, Date.valueOf(LocalDate.now()));
+                    ps.setLong(6, reserva.aulaId());
+                    ps.setLong(7, reserva.horarioId());
+                    ps.setLong(8, reserva.usuarioId());
+                    ps.setObject(9, reserva.serieId(), Types.BIGINT);
+                }
+        );
+    }
+
+    // Inserta dentro de un punto de guardado. Si la restriccion de exclusion rechaza alguna fila se
+    // deshace solo este INSERT, la transaccion sigue viva y se devuelve false. Se debe llamar
+    // dentro de una transaccion
+    public boolean insertarSiNoSolapan(List<NuevaReserva> nuevas) {
+        jdbc.execute("SAVEPOINT reservas_lote");
+
+        try {
+            insertar(nuevas);
+        } catch (DataIntegrityViolationException e) {
+            if (!GlobalExceptionHandler.esSolapamiento(e)) {
+                throw e;
+            }
+
+            jdbc.execute("ROLLBACK TO SAVEPOINT reservas_lote");
+            return false;
+        }
+
+        jdbc.execute("RELEASE SAVEPOINT reservas_lote");
+        return true;
+    }
+
+    // Recorre las reservas del rango (ordenadas por fecha e id) fila a fila con un cursor de solo
+    // avance, sin entidades ni listas intermedias. PostgreSQL solo respeta el fetch size dentro de
+    // una transaccion (sin autocommit), por eso se debe llamar desde un metodo @Transactional
+    public void recorrer(LocalDate desde, LocalDate hasta, Consumer<ReservaFila> consumidor) {
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT r.id, r.fecha, r.motivo, r.asistentes,
+                           a.id AS aula_id, a.nombre AS aula_nombre, a.capacidad, a.es_ordenadores,
+                           h.id AS horario_id, h.inicio, h.fin, h.tipo,
+                           u.id AS usuario_id, u.nombre AS usuario_nombre
+                    FROM reservas r
+                    JOIN aulas a ON a.id = r.aula_id
+                    JOIN horarios h ON h.id = r.horario_id
+                    JOIN usuarios u ON u.id = r.usuario_id
+                    WHERE (CAST(? AS date) IS NULL OR r.fecha >= ?)
+                      AND (CAST(? AS date) IS NULL OR r.fecha <= ?)
+                    ORDER BY r.fecha, r.id
+                    """, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            ps.setFetchSize(TAMANO_CURSOR);
+            ps.setObject(1, desde, Types.DATE);
+            ps.setObject(2, desde, Types.DATE);
+            ps.setObject(3, hasta, Types.DATE);
+            ps.setObject(4, hasta, Types.DATE);
+
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(fila(rs)));
+    }
+
+    // Total de reservas de cada aula, horario o usuario de la lista en una sola consulta
+    public Map<Long, Long> contar(Recurso recurso, Collection<Long> ids) {
+        String columna = columna(recurso);
+        Map<Long, Long> totales = new HashMap<>();
+
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT " + columna + " AS entidad_id, COUNT(*) AS total FROM reservas WHERE " + columna + " = ANY(?) GROUP BY " + columna);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+
+            return ps;
+        }, (RowCallbackHandler) rs -> totales.put(rs.getLong("entidad_id"), rs.getLong("total")));
+
+        return totales;
+    }
+
+    // Primeras reservas desde una fecha de cada aula, horario o usuario de la lista. El LATERAL
+    // recorre el indice (columna, fecha) de cada entidad y se detiene en el limite, asi una aula
+    // con miles de reservas cuesta lo mismo que una con pocas
+    public Map<Long, List<ReservaAnidada>> primeras(Recurso recurso, Collection<Long> ids, LocalDate desde, int limite) {
+        Map<Long, List<ReservaAnidada>> reservas = new HashMap<>();
+
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT e.id AS entidad_id, r.id, r.fecha, r.motivo, r.asistentes
+                    FROM unnest(?) AS e(id)
+                    CROSS JOIN LATERAL (
+                        SELECT id, fecha, motivo, asistentes
+                        FROM reservas
+                        WHERE %s = e.id
+                          AND fecha >= ?
+                        ORDER BY fecha, id
+                        LIMIT ?
+                    ) r
+                    ORDER BY e.id, r.fecha, r.id
+                    """.formatted(columna(recurso)));
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            ps.setObject(2, desde, Types.DATE);
+            ps.setInt(3, limite);
+
+            return ps;
+        }, (RowCallbackHandler) rs -> reservas.computeIfAbsent(rs.getLong("entidad_id"), id -> new ArrayList<>())
+                .add(new ReservaAnidada(
+                        rs.getLong("id"),
+                        rs.getObject("fecha", LocalDate.class),
+                        rs.getString("motivo"),
+                        rs.getInt("asistentes"))));
+
+        return reservas;
+    }
+
+    private static String columna(Recurso recurso) {
+        return switch (recurso) {
+            case AULA -> "aula_id";
+            case HORARIO -> "horario_id";
+            case USUARIO -> "usuario_id";
+        };
+    }
+
+    private static ReservaFila fila(ResultSet rs) throws SQLException {
+        String tipo = rs.getString("tipo");
+
+        return new ReservaFila(
+                rs.getLong("id"),
+                rs.getObject("fecha", LocalDate.class),
+                rs.getString("motivo"),
+                rs.getInt("asistentes"),
+                rs.getLong("aula_id"),
+                rs.getString("aula_nombre"),
+                rs.getInt("capacidad"),
+                rs.getBoolean("es_ordenadores"),
+                rs.getLong("horario_id"),
+                rs.getObject("inicio", LocalTime.class),
+                rs.getObject("fin", LocalTime.class),
+                tipo != null ? TipoHorario.valueOf(tipo) : null,
+                rs.getLong("usuario_id"),
+                rs.getString("usuario_nombre")
+        );
+    }
+
+    public record NuevaReserva(
+            Long id,
+            LocalDate fecha,
+            String motivo,
+            int asistentes,
+            Long aulaId,
+            Long horarioId,
+            Long usuarioId,
+            Long serieId
+    ) {
+    }
+}
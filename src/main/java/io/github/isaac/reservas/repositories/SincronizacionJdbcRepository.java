@@ -0,0 +1,180 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.dtos.sincronizacion.SincronizacionResponse;
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+// Consultas de la sincronizacion incremental sobre version_cambio y la tabla de lapidas
+// (db/migration/V3__sincronizacion.sql). Todos los rangos son [desde, hasta) y usan el indice
+// de version_cambio de cada tabla, el coste depende de los cambios devueltos y no del tamano
+// de las tablas
+@Repository
+@RequiredArgsConstructor
+public class SincronizacionJdbcRepository {
+    private final JdbcTemplate jdbc;
+
+    // Transaccion activa mas antigua segun la foto de la transaccion actual. Todas las filas con
+    // una version menor estan confirmadas y ninguna transaccion en curso puede escribir una nueva
+    public long versionEstable() {
+        return jdbc.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+    }
+
+    // Id de la transaccion actual, el mismo que los triggers guardan en version_cambio. Si la
+    // transaccion aun no ha escrito se le asigna ahora y sus escrituras usaran este
+    public long transaccionActual() {
+        return jdbc.queryForObject("SELECT pg_current_xact_id()::text::bigint", Long.class);
+    }
+
+    // Foto de la transaccion actual con el formato xmin:xmax:xip1,xip2,... En REPEATABLE READ es la
+    // misma para todas sus consultas
+    public String fotoActual() {
+        return jdbc.queryForObject("SELECT pg_current_snapshot()::text", String.class);
+    }
+
+    public long horizonte() {
+        return jdbc.queryForObject("SELECT version_cambio FROM sincronizacion_horizonte WHERE id = 1", Long.class);
+    }
+
+    // Versiones de las primeras filas cambiadas del rango, en orden, para decidir donde cortar la pagina
+    public List<Long> versiones(long desde, long hasta, boolean conUsuarios, boolean conEliminaciones, int limite) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT version_cambio FROM reservas WHERE version_cambio >= ? AND version_cambio < ?
+                UNION ALL SELECT version_cambio FROM aulas WHERE version_cambio >= ? AND version_cambio < ?
+                UNION ALL SELECT version_cambio FROM horarios WHERE version_cambio >= ? AND version_cambio < ?
+                """);
+        int tablas = 3;
+
+        if (conUsuarios) {
+            sql.append("UNION ALL SELECT version_cambio FROM usuarios WHERE version_cambio >= ? AND version_cambio < ?\n");
+            tablas++;
+        }
+
+        if (conEliminaciones) {
+            sql.append("UNION ALL SELECT version_cambio FROM eliminaciones WHERE version_cambio >= ? AND version_cambio < ?");
+            sql.append(conUsuarios ? "\n" : " AND recurso <> 'usuario'\n");
+            tablas++;
+        }
+
+        sql.append("ORDER BY version_cambio LIMIT ?");
+
+        Object[] parametros = new Object[tablas * 2 + 1];
+
+        for (int i = 0; i < tablas; i++) {
+            parametros[i * 2] = desde;
+            parametros[i * 2 + 1] = hasta;
+        }
+
+        parametros[tablas * 2] = limite;
+
+        return jdbc.queryForList(sql.toString(), Long.class, parametros);
+    }
+
+    public List<SincronizacionResponse.Reserva> reservas(long desde, long hasta) {
+        return jdbc.query("""
+                        SELECT id, fecha, motivo, asistentes, aula_id, horario_id, usuario_id, serie_id, version_cambio
+                        FROM reservas
+                        WHERE version_cambio >= ? AND version_cambio < ?
+                        ORDER BY version_cambio, id
+                        """,
+                (rs, i) -> new SincronizacionResponse.Reserva(
+                        rs.getLong("id"),
+                        rs.getObject("fecha", LocalDate.class),
+                        rs.getString("motivo"),
+                        rs.getInt("asistentes"),
+                        rs.getLong("aula_id"),
+                        rs.getLong("horario_id"),
+                        rs.getLong("usuario_id"),
+                        rs.getObject("serie_id", Long.class),
+                        rs.getLong("version_cambio")),
+                desde, hasta);
+    }
+
+    public List<SincronizacionResponse.Aula> aulas(long desde, long hasta) {
+        return jdbc.query("""
+                        SELECT id, nombre, capacidad, es_ordenadores, version_cambio
+                        FROM aulas
+                        WHERE version_cambio >= ? AND version_cambio < ?
+                        ORDER BY version_cambio, id
+                        """,
+                (rs, i) -> new SincronizacionResponse.Aula(
+                        rs.getLong("id"),
+                        rs.getString("nombre"),
+                        rs.getInt("capacidad"),
+                        rs.getBoolean("es_ordenadores"),
+                        rs.getLong("version_cambio")),
+                desde, hasta);
+    }
+
+    public List<SincronizacionResponse.Horario> horarios(long desde, long hasta) {
+        return jdbc.query("""
+                        SELECT id, dia_semana, tipo, inicio, fin, session_dia, version_cambio
+                        FROM horarios
+                        WHERE version_cambio >= ? AND version_cambio < ?
+                        ORDER BY version_cambio, id
+                        """,
+                (rs, i) -> new SincronizacionResponse.Horario(
+                        rs.getLong("id"),
+                        rs.getString("dia_semana") != null ? DiaSemana.valueOf(rs.getString("dia_semana")) : null,
+                        rs.getString("tipo") != null ? TipoHorario.valueOf(rs.getString("tipo")) : null,
+                        rs.getObject("inicio", LocalTime.class),
+                        rs.getObject("fin", LocalTime.class),
+                        rs.getInt("session_dia"),
+                        rs.getLong("version_cambio")),
+                desde, hasta);
+    }
+
+    public List<SincronizacionResponse.Usuario> usuarios(long desde, long hasta) {
+        return jdbc.query("""
+                        SELECT id, nombre, email, roles, enabled, version_cambio
+                        FROM usuarios
+                        WHERE version_cambio >= ? AND version_cambio < ?
+                        ORDER BY version_cambio, id
+                        """,
+                (rs, i) -> new SincronizacionResponse.Usuario(
+                        rs.getLong("id"),
+                        rs.getString("nombre"),
+                        rs.getString("email"),
+                        rs.getString("roles"),
+                        rs.getBoolean("enabled"),
+                        rs.getLong("version_cambio")),
+                desde, hasta);
+    }
+
+    public List<SincronizacionResponse.Eliminacion> eliminaciones(long desde, long hasta, boolean conUsuarios) {
+        return jdbc.query("""
+                        SELECT recurso, entidad_id, version_cambio
+                        FROM eliminaciones
+                        WHERE version_cambio >= ? AND version_cambio < ?
+                          AND (? OR recurso <> 'usuario')
+                        ORDER BY version_cambio
+                        """,
+                (rs, i) -> new SincronizacionResponse.Eliminacion(
+                        rs.getString("recurso"),
+                        rs.getLong("entidad_id"),
+                        rs.getLong("version_cambio")),
+                desde, hasta, conUsuarios);
+    }
+
+    // Borra las lapidas anteriores al limite y sube el horizonte por encima de la version mas alta
+    // borrada. Devuelve si se ha borrado alguna
+    public boolean purgar(LocalDateTime limite) {
+        return jdbc.update("""
+                WITH borradas AS (
+                    DELETE FROM eliminaciones WHERE eliminado_en < ? RETURNING version_cambio
+                )
+                UPDATE sincronizacion_horizonte
+                SET version_cambio = GREATEST(version_cambio, (SELECT MAX(version_cambio) + 1 FROM borradas))
+                WHERE id = 1 AND EXISTS (SELECT 1 FROM borradas)
+                """,
+                Timestamp.valueOf(limite)) > 0;
+    }
+}
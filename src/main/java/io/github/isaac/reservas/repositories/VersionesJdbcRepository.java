@@ -0,0 +1,36 @@
+package io.github.isaac.reservas.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Versiones de las colecciones compartidas entre instancias (db/migration/V7__versiones_colecciones.sql).
+// Las escrituras las registran los triggers de cada tabla, aqui solo se leen y se compactan
+@Repository
+@RequiredArgsConstructor
+public class VersionesJdbcRepository {
+    private final JdbcTemplate jdbc;
+
+    // Version de cada coleccion segun la foto de la transaccion actual, en una sola consulta
+    public Map<String, Long> leer() {
+        Map<String, Long> versiones = new HashMap<>();
+
+        jdbc.query("""
+                SELECT v.coleccion, v.version + (SELECT count(*) FROM cambios_colecciones c WHERE c.coleccion = v.coleccion)
+                FROM versiones_colecciones v
+                """, fila -> {
+            versiones.put(fila.getString(1), fila.getLong(2));
+        });
+
+        return versiones;
+    }
+
+    public int compactar() {
+        Integer compactados = jdbc.queryForObject("SELECT colecciones_compactar()", Integer.class);
+
+        return compactados != null ? compactados : 0;
+    }
+}
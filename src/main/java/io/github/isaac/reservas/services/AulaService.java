@@ -1,36 +1,80 @@
 package io.github.isaac.reservas.services;
 
+import io.github.isaac.reservas.dtos.aula.AulaDisponible;
+import io.github.isaac.reservas.dtos.aula.AulaDisponibleFiltro;
 import io.github.isaac.reservas.dtos.aula.AulaPostRequest;
 import io.github.isaac.reservas.dtos.aula.AulaResponse;
 import io.github.isaac.reservas.dtos.aula.AulaUpdateRequest;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
 import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.TipoCambio;
 import io.github.isaac.reservas.mappers.AulaMapper;
 import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.services.cache.CatalogosBase;
+import io.github.isaac.reservas.services.version.Coleccion;
+import io.github.isaac.reservas.services.version.VersionesColecciones;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("reservas.servicio")
 @AllArgsConstructor
 public class AulaService {
+    // Rango maximo de la busqueda de aulas libres
+    private static final int MAX_DIAS_DISPONIBLES = 366;
+
     private final AulaMapper mapper;
     private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final ReservasAnidadasService reservasAnidadas;
+    private final CatalogosBase catalogos;
+    private final VersionesColecciones versiones;
+    private final ApplicationEventPublisher eventos;
 
-    // Se debe usar transactional por que cuando voy acceder la referencia reserva
-    // es posible que hibernate no carge ese dato o no le de tiempo, para evitar eso hacer
-    // transactional cuando se intente acceder a una referencia de la entidad ademas se debe
-    // comprobar que la carga de la entidad referente sea lazy, si es eager no hace falta
-    @Transactional
-    public List<AulaResponse> getAulas() {
-        return aulas.findAll()
-                .stream()
-                // Tener en cuenta que en el dto se accede a la referencia de la entidad reservas
-                .map(mapper::toDto)
-                .toList();
+    // Los datos del aula salen de CatalogosBase y las reservas de cada aula no se cargan desde la
+    // entidad: ReservasAnidadasService trae solo el total y las pedidas en dos consultas para todo
+    // el listado. Las reservas no se guardan en cache, asi reservar no invalida el catalogo
+    @Transactional(readOnly = true)
+    public List<AulaResponse> getAulas(ReservasAnidadas reservas) {
+        return reservasAnidadas.completar(
+                Recurso.AULA,
+                catalogos.aulas(versiones.version(Coleccion.AULAS)).stream().map(mapper::copiar).toList(),
+                reservas);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AulaDisponible> getAulasDisponibles(AulaDisponibleFiltro filtro) {
+        Horario horario = horarios.findById(filtro.getHorarioId())
+                .orElseThrow(() -> new EntityNotFoundException("Horario no encontrado"));
+
+        List<LocalDate> fechas = fechasDisponibles(filtro, horario);
+
+        if (fechas.isEmpty()) {
+            throw new IllegalArgumentException("El rango no incluye ningun dia del horario");
+        }
+
+        return aulas.findDisponibles(
+                fechas,
+                horario.getInicio(),
+                horario.getFin(),
+                filtro.getMinCapacidad(),
+                filtro.getOrdenadores()
+        );
     }
 
     @Transactional
@@ -38,9 +82,14 @@ public class AulaService {
         Aula aula = mapper.toEntity(request);
         Aula aulaSaved = aulas.save(aula);
 
-        aulaSaved.setReservas(List.of());
+        eventos.publishEvent(new CatalogoCambiado(Recurso.AULA, aulaSaved.getId(), TipoCambio.CREACION));
+
+        // Un aula nueva no tiene reservas
+        AulaResponse response = mapper.toDto(aulaSaved);
+        response.setTotalReservas(0L);
+        response.setReservas(List.of());
 
-        return mapper.toDto(aulaSaved);
+        return response;
     }
 
 
@@ -51,20 +100,56 @@ public class AulaService {
 
         // Se van actualizar datos no nulos del dto
         mapper.updateAula(request, aula);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.AULA, id, TipoCambio.ACTUALIZACION));
 
         return mapper.toDto(aulas.save(aula));
     }
 
-    @Transactional
-    public Optional<AulaResponse> getAula(Long id) {
-        return aulas.findById(id).map(mapper::toDto);
+    @Transactional(readOnly = true)
+    public Optional<AulaResponse> getAula(Long id, ReservasAnidadas reservas) {
+        return catalogos.aula(id, versiones.version(Coleccion.AULAS))
+                .map(mapper::copiar)
+                .map(dto -> reservasAnidadas.completar(Recurso.AULA, dto, reservas));
     }
 
+    // Las reservas del aula se borran en cascada
     public void deleteAula(Long id) {
         if (!aulas.existsById(id)) {
             throw new EntityNotFoundException("Aula no encontrada");
         }
 
         aulas.deleteById(id);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.AULA, id, TipoCambio.ELIMINACION));
+    }
+
+    // Sin rango solo se mira la fecha pedida, que debe caer en el dia de la semana del horario (otro
+    // dia el tramo no existe). Con rango las fechas de ese dia de la semana
+    private static List<LocalDate> fechasDisponibles(AulaDisponibleFiltro filtro, Horario horario) {
+        if (filtro.getHasta() == null) {
+            if (filtro.getFecha().getDayOfWeek() != horario.getDiaSemana().toDayOfWeek()) {
+                throw new IllegalArgumentException("La fecha no cae en el dia del horario (" + horario.getDiaSemana() + ")");
+            }
+
+            return List.of(filtro.getFecha());
+        }
+
+        if (filtro.getHasta().isBefore(filtro.getFecha())) {
+            throw new IllegalArgumentException("La fecha hasta no puede ser anterior a la fecha");
+        }
+
+        if (ChronoUnit.DAYS.between(filtro.getFecha(), filtro.getHasta()) > MAX_DIAS_DISPONIBLES) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAX_DIAS_DISPONIBLES + " dias");
+        }
+
+        List<LocalDate> fechas = new ArrayList<>();
+        LocalDate fecha = filtro.getFecha()
+                .with(TemporalAdjusters.nextOrSame(horario.getDiaSemana().toDayOfWeek()));
+
+        while (!fecha.isAfter(filtro.getHasta())) {
+            fechas.add(fecha);
+            fecha = fecha.plusWeeks(1);
+        }
+
+        return fechas;
     }
 }
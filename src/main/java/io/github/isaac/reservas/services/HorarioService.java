@@ -3,11 +3,20 @@ package io.github.isaac.reservas.services;
 import io.github.isaac.reservas.dtos.horario.HorarioPostRequest;
 import io.github.isaac.reservas.dtos.horario.HorarioResponse;
 import io.github.isaac.reservas.dtos.horario.HorarioUpdateRequest;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
 import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.TipoCambio;
 import io.github.isaac.reservas.mappers.HorarioMapper;
 import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.services.cache.CatalogosBase;
+import io.github.isaac.reservas.services.version.Coleccion;
+import io.github.isaac.reservas.services.version.VersionesColecciones;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,17 +24,24 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("reservas.servicio")
 @AllArgsConstructor
 public class HorarioService {
     private final RepositoryHorario horarios;
     private final HorarioMapper horarioMapper;
+    private final ReservasAnidadasService reservasAnidadas;
+    private final CatalogosBase catalogos;
+    private final VersionesColecciones versiones;
+    private final ApplicationEventPublisher eventos;
 
-    @Transactional
-    public List<HorarioResponse> getHorarios() {
-        return horarios.findAll()
-                .stream()
-                .map(horarioMapper::toDto)
-                .toList();
+    // Los datos del horario salen de CatalogosBase y las reservas se completan en cada peticion,
+    // igual que en AulaService
+    @Transactional(readOnly = true)
+    public List<HorarioResponse> getHorarios(ReservasAnidadas reservas) {
+        return reservasAnidadas.completar(
+                Recurso.HORARIO,
+                catalogos.horarios(versiones.version(Coleccion.HORARIOS)).stream().map(horarioMapper::copiar).toList(),
+                reservas);
     }
 
     @Transactional
@@ -33,9 +49,13 @@ public class HorarioService {
         Horario horario = horarioMapper.toEntity(request);
         Horario horarioAdded = horarios.save(horario);
 
-        horarioAdded.setReservas(List.of());
+        eventos.publishEvent(new CatalogoCambiado(Recurso.HORARIO, horarioAdded.getId(), TipoCambio.CREACION));
+
+        HorarioResponse response = horarioMapper.toDto(horarioAdded);
+        response.setTotalReservas(0L);
+        response.setReservas(List.of());
 
-        return horarioMapper.toDto(horarioAdded);
+        return response;
     }
 
     @Transactional
@@ -45,20 +65,25 @@ public class HorarioService {
 
         // Se van actualizar datos no nulos del dto
         horarioMapper.updateHorarioProps(request, horario);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.HORARIO, id, TipoCambio.ACTUALIZACION));
 
         return horarioMapper.toDto(horarios.save(horario));
     }
 
-    @Transactional
-    public Optional<HorarioResponse> getHorario(Long id) {
-        return horarios.findById(id).map(horarioMapper::toDto);
+    @Transactional(readOnly = true)
+    public Optional<HorarioResponse> getHorario(Long id, ReservasAnidadas reservas) {
+        return catalogos.horario(id, versiones.version(Coleccion.HORARIOS))
+                .map(horarioMapper::copiar)
+                .map(dto -> reservasAnidadas.completar(Recurso.HORARIO, dto, reservas));
     }
 
+    // Las reservas del horario se borran en cascada
     public void deleteHorario(Long id) {
         if (!horarios.existsById(id)) {
             throw new EntityNotFoundException("Horario no encontrado");
         }
 
         horarios.deleteById(id);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.HORARIO, id, TipoCambio.ELIMINACION));
     }
 }
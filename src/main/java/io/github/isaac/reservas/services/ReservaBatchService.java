@@ -0,0 +1,260 @@
+package io.github.isaac.reservas.services;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaBatchResultado;
+import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository.NuevaReserva;
+import io.github.isaac.reservas.services.metricas.MetricasReservas;
+import io.github.isaac.reservas.services.metricas.MetricasReservas.Motivo;
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Alta masiva de reservas: se valida todo el lote con unas pocas consultas por conjuntos
+// y las reservas validas se insertan con JDBC en lotes. Cada elemento recibe su resultado.
+// Si otra transaccion reserva el mismo tramo entre la validacion y el insert, la restriccion de
+// exclusion (23P01) rechaza el lote entero: se deshace solo el INSERT, se validan otra vez
+// contra la base de datos solo las aceptadas y se rechazan las que ahora chocan
+@Service
+@AllArgsConstructor
+@Timed("reservas.servicio")
+public class ReservaBatchService {
+    // Inserciones del lote tras un 23P01. Si siguen chocando se responde como cualquier otro 23P01
+    private static final int INTENTOS_INSERCION = 3;
+
+    private final RepositoryReserva reservas;
+    private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final RepositoryUsuario usuarios;
+    private final ReservaJdbcRepository reservasJdbc;
+    private final ApplicationEventPublisher eventos;
+    private final MetricasReservas metricas;
+
+    @Retryable(retryFor = TransientDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 50, multiplier = 2, random = true))
+    @Transactional
+    public List<ReservaBatchResultado> addReservas(List<ReservaPostRequest> solicitudes) {
+        // Entidades referenciales del lote, una consulta por tipo
+        Map<Long, Aula> aulasLote = aulas.findAllById(idsDe(solicitudes, ReservaPostRequest::getAulaId))
+                .stream()
+                .collect(Collectors.toMap(Aula::getId, Function.identity()));
+
+        Map<Long, Horario> horariosLote = horarios.findAllById(idsDe(solicitudes, ReservaPostRequest::getHorarioId))
+                .stream()
+                .collect(Collectors.toMap(Horario::getId, Function.identity()));
+
+        Set<Long> usuariosLote = new HashSet<>(usuarios.findIdsExistentes(idsDe(solicitudes, ReservaPostRequest::getUsuarioId)));
+
+        // Ocupacion actual de las aulas del lote en el rango de fechas del lote
+        Map<Clave, List<ReservaSnapshot>> ocupacion = ocupacionActual(solicitudes, aulasLote.keySet());
+
+        List<ReservaBatchResultado> resultados = new ArrayList<>(solicitudes.size());
+        List<ReservaSnapshot> aceptadas = new ArrayList<>();
+        List<Integer> indicesAceptados = new ArrayList<>();
+
+        for (int i = 0; i < solicitudes.size(); i++) {
+            ReservaPostRequest solicitud = solicitudes.get(i);
+            Aula aula = aulasLote.get(solicitud.getAulaId());
+            Horario horario = horariosLote.get(solicitud.getHorarioId());
+
+            String error = null;
+            Motivo motivo = Motivo.REFERENCIA;
+
+            if (horario == null) {
+                error = "Horario no encontrado";
+            } else if (aula == null) {
+                error = "Aula no encontrado";
+            } else if (!usuariosLote.contains(solicitud.getUsuarioId())) {
+                error = "Usuario no encontrado";
+            } else if (solicitud.getAsistentes() > aula.getCapacidad()) {
+                error = "Los asistentes no puede superar la capacidad del aula";
+                motivo = Motivo.CAPACIDAD;
+            }
+
+            if (error != null) {
+                metricas.rechazo(motivo);
+                resultados.add(ReservaBatchResultado.rechazada(i, error));
+                continue;
+            }
+
+            ReservaSnapshot tramo = new ReservaSnapshot(
+                    null,
+                    aula.getId(),
+                    horario.getId(),
+                    solicitud.getUsuarioId(),
+                    solicitud.getFecha(),
+                    horario.getInicio(),
+                    horario.getFin(),
+                    solicitud.getAsistentes()
+            );
+
+            // Se comprueba contra la base de datos y contra las aceptadas antes en el mismo lote
+            List<ReservaSnapshot> delDia = ocupacion.computeIfAbsent(new Clave(aula.getId(), solicitud.getFecha()), c -> new ArrayList<>());
+
+            if (delDia.stream().anyMatch(otro -> solapan(otro, tramo))) {
+                metricas.rechazo(Motivo.SOLAPAMIENTO);
+                resultados.add(ReservaBatchResultado.rechazada(i, "Hay solapamiento en el tramo"));
+                continue;
+            }
+
+            delDia.add(tramo);
+            aceptadas.add(tramo);
+            indicesAceptados.add(i);
+            resultados.add(null);
+        }
+
+        if (aceptadas.isEmpty()) {
+            return resultados;
+        }
+
+        // Ids de la secuencia en un solo viaje y luego INSERT agrupados
+        List<Long> ids = reservasJdbc.reservarIds(aceptadas.size());
+        List<Pendiente> pendientes = new ArrayList<>(aceptadas.size());
+
+        for (int j = 0; j < aceptadas.size(); j++) {
+            ReservaSnapshot tramo = aceptadas.get(j);
+
+            pendientes.add(new Pendiente(indicesAceptados.get(j), new ReservaSnapshot(
+                    ids.get(j),
+                    tramo.aulaId(),
+                    tramo.horarioId(),
+                    tramo.usuarioId(),
+                    tramo.fecha(),
+                    tramo.inicio(),
+                    tramo.fin(),
+                    tramo.asistentes()
+            )));
+        }
+
+        for (Pendiente insertada : insertar(pendientes, solicitudes, resultados)) {
+            resultados.set(insertada.indice(), ReservaBatchResultado.creada(insertada.indice(), insertada.tramo().id()));
+            eventos.publishEvent(ReservaCambiada.creada(insertada.tramo()));
+        }
+
+        return resultados;
+    }
+
+    // Un 23P01 deshace solo el INSERT (punto de guardado) y se reintenta sin los elementos que
+    // chocan. El ultimo intento va sin punto de guardado y el 23P01 se responde como en el alta
+    // individual. Devuelve las que se han insertado
+    private List<Pendiente> insertar(List<Pendiente> pendientes, List<ReservaPostRequest> solicitudes,
+                                     List<ReservaBatchResultado> resultados) {
+        for (int intento = 1; !pendientes.isEmpty(); intento++) {
+            List<NuevaReserva> nuevas = pendientes.stream().map(p -> nueva(p, solicitudes.get(p.indice()))).toList();
+
+            if (intento == INTENTOS_INSERCION) {
+                reservasJdbc.insertar(nuevas);
+                return pendientes;
+            }
+
+            if (reservasJdbc.insertarSiNoSolapan(nuevas)) {
+                return pendientes;
+            }
+
+            pendientes = sinSolapamientos(pendientes, resultados);
+        }
+
+        return pendientes;
+    }
+
+    // Vuelve a leer la ocupacion de las aulas de las pendientes (con lectura confirmada se ven las
+    // reservas de la transaccion que ha provocado el 23P01) y rechaza las que solapan
+    private List<Pendiente> sinSolapamientos(List<Pendiente> pendientes, List<ReservaBatchResultado> resultados) {
+        Set<Long> aulaIds = pendientes.stream().map(p -> p.tramo().aulaId()).collect(Collectors.toSet());
+        LocalDate desde = pendientes.stream().map(p -> p.tramo().fecha()).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate hasta = pendientes.stream().map(p -> p.tramo().fecha()).max(Comparator.naturalOrder()).orElseThrow();
+
+        Map<Clave, List<ReservaSnapshot>> ocupacion = new HashMap<>();
+
+        for (ReservaSnapshot existente : reservas.findSnapshotsEnRango(aulaIds, desde, hasta)) {
+            ocupacion.computeIfAbsent(new Clave(existente.aulaId(), existente.fecha()), c -> new ArrayList<>())
+                    .add(existente);
+        }
+
+        List<Pendiente> validas = new ArrayList<>(pendientes.size());
+
+        for (Pendiente pendiente : pendientes) {
+            List<ReservaSnapshot> delDia = ocupacion.getOrDefault(new Clave(pendiente.tramo().aulaId(), pendiente.tramo().fecha()), List.of());
+
+            if (delDia.stream().anyMatch(otro -> solapan(otro, pendiente.tramo()))) {
+                metricas.rechazo(Motivo.RESTRICCION);
+                resultados.set(pendiente.indice(), ReservaBatchResultado.rechazada(pendiente.indice(), "Hay solapamiento en el tramo"));
+            } else {
+                validas.add(pendiente);
+            }
+        }
+
+        return validas;
+    }
+
+    private static NuevaReserva nueva(Pendiente pendiente, ReservaPostRequest solicitud) {
+        ReservaSnapshot tramo = pendiente.tramo();
+
+        return new NuevaReserva(
+                tramo.id(),
+                tramo.fecha(),
+                solicitud.getMotivo(),
+                solicitud.getAsistentes(),
+                tramo.aulaId(),
+                tramo.horarioId(),
+                tramo.usuarioId(),
+                null
+        );
+    }
+
+    private Map<Clave, List<ReservaSnapshot>> ocupacionActual(List<ReservaPostRequest> solicitudes, Set<Long> aulaIds) {
+        Map<Clave, List<ReservaSnapshot>> ocupacion = new HashMap<>();
+
+        if (aulaIds.isEmpty()) {
+            return ocupacion;
+        }
+
+        LocalDate desde = solicitudes.stream().map(ReservaPostRequest::getFecha).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate hasta = solicitudes.stream().map(ReservaPostRequest::getFecha).max(Comparator.naturalOrder()).orElseThrow();
+
+        for (ReservaSnapshot existente : reservas.findSnapshotsEnRango(aulaIds, desde, hasta)) {
+            ocupacion.computeIfAbsent(new Clave(existente.aulaId(), existente.fecha()), c -> new ArrayList<>())
+                    .add(existente);
+        }
+
+        return ocupacion;
+    }
+
+    private static Set<Long> idsDe(List<ReservaPostRequest> solicitudes, Function<ReservaPostRequest, Long> id) {
+        return solicitudes.stream().map(id).collect(Collectors.toSet());
+    }
+
+    private static boolean solapan(ReservaSnapshot a, ReservaSnapshot b) {
+        return a.inicio().isBefore(b.fin()) && a.fin().isAfter(b.inicio());
+    }
+
+    private record Clave(Long aulaId, LocalDate fecha) {
+    }
+
+    // Elemento aceptado del lote con su id ya reservado
+    private record Pendiente(int indice, ReservaSnapshot tramo) {
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.isaac.reservas.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.enums.FormatoExportacion;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Exportacion de reservas: cada fila del cursor JDBC se escribe directamente en la salida,
+// la memoria usada no depende del numero de reservas exportadas
+@Service
+@AllArgsConstructor
+@Timed("reservas.servicio")
+public class ReservaExportService {
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private static final String CABECERA_CSV =
+            "id,fecha,motivo,asistentes,aula_id,aula,capacidad,ordenadores,horario_id,inicio,fin,tipo,usuario_id,usuario";
+
+    private final ReservaJdbcRepository reservasJdbc;
+    private final ObjectMapper objectMapper;
+
+    // Comprueba los parametros antes de escribir nada en la respuesta
+    public void validar(LocalDate desde, LocalDate hasta) {
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha hasta no puede ser anterior a desde");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportar(FormatoExportacion formato, LocalDate desde, LocalDate hasta, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+
+        switch (formato) {
+            case CSV -> exportarCsv(desde, hasta, writer);
+            case NDJSON -> exportarNdjson(desde, hasta, writer);
+        }
+
+        writer.flush();
+    }
+
+    private void exportarCsv(LocalDate desde, LocalDate hasta, Writer writer) throws IOException {
+        writer.write(CABECERA_CSV);
+        writer.write('\n');
+
+        // Se envian las cabeceras y la primera linea cuanto antes
+        writer.flush();
+
+        reservasJdbc.recorrer(desde, hasta, fila -> escribir(writer, lineaCsv(fila)));
+    }
+
+    private void exportarNdjson(LocalDate desde, LocalDate hasta, Writer writer) throws IOException {
+        // Un objeto JSON por linea, el generador no cierra la salida al terminar
+        SequenceWriter secuencia = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+
+        reservasJdbc.recorrer(desde, hasta, fila -> {
+            try {
+                secuencia.write(fila);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        secuencia.flush();
+        writer.write('\n');
+    }
+
+    private static String lineaCsv(ReservaFila fila) {
+        return String.join(",",
+                String.valueOf(fila.id()),
+                String.valueOf(fila.fecha()),
+                csv(fila.motivo()),
+                String.valueOf(fila.asistentes()),
+                String.valueOf(fila.aulaId()),
+                csv(fila.aulaNombre()),
+                String.valueOf(fila.aulaCapacidad()),
+                String.valueOf(fila.aulaOrdenadores()),
+                String.valueOf(fila.horarioId()),
+                String.valueOf(fila.horarioInicio()),
+                String.valueOf(fila.horarioFin()),
+                fila.horarioTipo() != null ? fila.horarioTipo().name() : "",
+                String.valueOf(fila.usuarioId()),
+                csv(fila.usuarioNombre())
+        ) + "\n";
+    }
+
+    // Se entrecomillan los textos con separadores, comillas o saltos de linea (RFC 4180)
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    private static void escribir(Writer writer, String texto) {
+        try {
+            writer.write(texto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
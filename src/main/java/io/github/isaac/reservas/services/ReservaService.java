@@ -1,5 +1,9 @@
 package io.github.isaac.reservas.services;
 
+import io.github.isaac.reservas.dtos.reserva.ReservaCursor;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.dtos.reserva.ReservaFiltro;
+import io.github.isaac.reservas.dtos.reserva.ReservaPageResponse;
 import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
 import io.github.isaac.reservas.dtos.reserva.ReservaResponse;
 import io.github.isaac.reservas.dtos.reserva.ReservaUpdateRequest;
@@ -13,15 +17,28 @@ import io.github.isaac.reservas.repositories.RepositoryHorario;
 import io.github.isaac.reservas.repositories.RepositoryReserva;
 import io.github.isaac.reservas.repositories.RepositoryUsuario;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.AllArgsConstructor;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.services.metricas.MetricasReservas;
+import io.github.isaac.reservas.services.metricas.MetricasReservas.Motivo;
+import io.github.isaac.reservas.services.ocupacion.OcupacionAulas;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
+@Timed("reservas.servicio")
 public class ReservaService {
     private final RepositoryUsuario usuarios;
     private final RepositoryReserva reservas;
@@ -29,15 +46,53 @@ public class ReservaService {
     private final RepositoryAula aulas;
 
     private final ReservaMapper reservaMapper;
+    private final OcupacionAulas ocupacion;
+    private final ApplicationEventPublisher eventos;
+    private final MetricasReservas metricas;
+
+    // Los huecos libres del indice no se confirman en la base de datos: un solapamiento que el
+    // indice no ve (reservado en otra instancia) lo rechaza la restriccion de exclusion
+    @Value("${reservas.ocupacion.verificar-libres:false}")
+    private boolean verificarLibres;
+
+    @Transactional(readOnly = true)
+    public ReservaPageResponse getReservas(ReservaFiltro filtro) {
+        ReservaCursor cursor = ReservaCursor.decodificar(filtro.getCursor());
+
+        // Se pide un elemento de mas para saber si existe una pagina siguiente
+        List<ReservaFila> pagina = reservas.buscarPagina(
+                filtro.getAulaId(),
+                filtro.getUsuarioId(),
+                filtro.getHorarioId(),
+                filtro.getTipo(),
+                filtro.getDesde(),
+                filtro.getHasta(),
+                cursor != null ? cursor.fecha() : null,
+                cursor != null ? cursor.id() : null,
+                filtro.isArchivo(),
+                filtro.getSize() + 1
+        );
 
-    @Transactional
-    public List<ReservaResponse> getReservas() {
-        return reservas.findAll()
-                .stream()
-                .map(reservaMapper::toDto)
-                .toList();
+        boolean hayMas = pagina.size() > filtro.getSize();
+        List<ReservaFila> contenido = hayMas ? pagina.subList(0, filtro.getSize()) : pagina;
+
+        String siguienteCursor = null;
+
+        if (hayMas) {
+            ReservaFila ultima = contenido.getLast();
+            siguienteCursor = new ReservaCursor(ultima.fecha(), ultima.id()).codificar();
+        }
+
+        return new ReservaPageResponse(
+                contenido.stream().map(reservaMapper::toDto).toList(),
+                siguienteCursor
+        );
     }
 
+    // Los solapamientos que se cuelan a la vez los rechaza la restriccion de exclusion de la base de datos.
+    // Los bloqueos mutuos y fallos de serializacion entre escrituras concurrentes se reintentan
+    // en una transaccion nueva (el reintento envuelve a @Transactional)
+    @Retryable(retryFor = TransientDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 50, multiplier = 2, random = true))
     @Transactional
     public ReservaResponse addReserva(ReservaPostRequest request) {
         // Se busca las entidades referenciales
@@ -59,31 +114,24 @@ public class ReservaService {
         reserva.setUsuario(usuario);
 
         // Se comprueba solapamiento y validaciones
-        boolean haySolapamiento = reservas.existsSolapamiento(
-                aula.getId(),
-                reserva.getFecha(),
-                horario.getInicio(),
-                horario.getFin()
-        );
-
-        if (haySolapamiento) {
-            throw new IllegalArgumentException("Hay solapamiento en el tramo");
-        }
-
-        if (reserva.getAsistentes() > reserva.getAula().getCapacidad()) {
-            throw new IllegalArgumentException("Los asistentes no puede superar la capacidad del aula");
-        }
+        validarReserva(reserva);
 
         // Se guarda
-        return reservaMapper.toDto(reservas.save(reserva));
+        Reserva guardada = reservas.save(reserva);
+        eventos.publishEvent(ReservaCambiada.creada(ReservaSnapshot.de(guardada)));
+
+        return reservaMapper.toDto(guardada);
     }
 
+    @Retryable(retryFor = TransientDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 50, multiplier = 2, random = true))
     @Transactional
     public ReservaResponse updateReserva(Long id, ReservaUpdateRequest request) {
         // Se busca entidad para actualizar
         Reserva reserva = reservas.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Reserva no encontrado"));
 
+        ReservaSnapshot anterior = ReservaSnapshot.de(reserva);
+
         // Se valida las relaciones y se establecen
         if (request.getUsuarioId() != null) {
             Usuario usuario = usuarios.findById(request.getUsuarioId())
@@ -110,37 +158,63 @@ public class ReservaService {
         reservaMapper.updateReserva(request, reserva);
 
         // Se mira si hay solapamiento
-        boolean haySolapamiento = reservas.existsSolapamiento(
-                reserva.getAula().getId(),
-                reserva.getFecha(),
-                reserva.getHorario().getInicio(),
-                reserva.getHorario().getFin()
-        );
-
-        if (haySolapamiento) {
-            throw new IllegalArgumentException("Hay solapamiento en el tramo");
-        }
-
-        if (reserva.getAsistentes() > reserva.getAula().getCapacidad()) {
-            throw new IllegalArgumentException("Los asistentes no puede superar la capacidad del aula");
-        }
+        validarReserva(reserva);
 
         // Se guardar
-        return reservaMapper.toDto(reservas.save(reserva));
+        Reserva guardada = reservas.save(reserva);
+        eventos.publishEvent(ReservaCambiada.actualizada(anterior, ReservaSnapshot.de(guardada)));
+
+        return reservaMapper.toDto(guardada);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<ReservaResponse> getReserva(Long id) {
-        return reservas.findById(id).map(reservaMapper::toDto);
+        return reservas.findFilaById(id).map(reservaMapper::toDto);
     }
 
+    @Transactional
     public void deleteReserva(Long id) {
-        if (!reservas.existsById(id)) {
-            throw new EntityNotFoundException("Reserva no encontrado");
-        }
+        Reserva reserva = reservas.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Reserva no encontrado"));
+
+        ReservaSnapshot anterior = ReservaSnapshot.de(reserva);
 
-        reservas.deleteById(id);
+        reservas.delete(reserva);
+        eventos.publishEvent(ReservaCambiada.eliminada(anterior));
     }
 
+    // La capacidad se comprueba con el aula ya cargada y el solapamiento primero en el
+    // indice en memoria. Si el indice encuentra el tramo ocupado se confirma en la base de datos
+    // antes de rechazar: el indice de esta instancia no ve los borrados de otras y dejaria el
+    // tramo bloqueado. Si lo ve libre solo se consulta la base de datos cuando el indice no esta
+    // cargado o con verificar-libres=true
+    private void validarReserva(Reserva reserva) {
+        if (reserva.getAsistentes() > reserva.getAula().getCapacidad()) {
+            metricas.rechazo(Motivo.CAPACIDAD);
+            throw new IllegalArgumentException("Los asistentes no puede superar la capacidad del aula");
+        }
+
+        Long aulaId = reserva.getAula().getId();
+        LocalTime inicio = reserva.getHorario().getInicio();
+        LocalTime fin = reserva.getHorario().getFin();
+
+        Optional<Boolean> enIndice = ocupacion.haySolapamiento(aulaId, reserva.getFecha(), inicio, fin, reserva.getId());
+        metricas.consultaIndice(enIndice);
 
+        boolean ocupadoEnIndice = enIndice.orElse(false);
+
+        if (enIndice.isEmpty() || ocupadoEnIndice || verificarLibres) {
+            boolean solapa = reservas.existsSolapamiento(aulaId, reserva.getFecha(), inicio, fin, reserva.getId());
+            metricas.consultaBaseDatos(solapa);
+
+            if (solapa) {
+                metricas.rechazo(Motivo.SOLAPAMIENTO);
+                throw new IllegalArgumentException("Hay solapamiento en el tramo");
+            }
+
+            if (ocupadoEnIndice) {
+                ocupacion.recargar(aulaId, reserva.getFecha(), reserva.getId());
+            }
+        }
+    }
 }
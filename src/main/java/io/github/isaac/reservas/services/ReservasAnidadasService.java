@@ -0,0 +1,46 @@
+package io.github.isaac.reservas.services;
+
+import io.github.isaac.reservas.dtos.reserva.ReservaAnidada;
+import io.github.isaac.reservas.dtos.respuesta.ConReservas;
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+// Rellena el total y las reservas anidadas de aulas, horarios y usuarios con una consulta por
+// dato pedido para toda la lista, sin cargar las colecciones de las entidades. Se llama dentro
+// de la transaccion del servicio que construye los DTOs
+@Service
+@AllArgsConstructor
+public class ReservasAnidadasService {
+    private final ReservaJdbcRepository reservasJdbc;
+
+    public <T extends ConReservas> List<T> completar(Recurso recurso, List<T> dtos, ReservasAnidadas reservas) {
+        if (dtos.isEmpty()) {
+            return dtos;
+        }
+
+        List<Long> ids = dtos.stream().map(ConReservas::getId).toList();
+
+        if (reservas.contar()) {
+            Map<Long, Long> totales = reservasJdbc.contar(recurso, ids);
+            dtos.forEach(dto -> dto.setTotalReservas(totales.getOrDefault(dto.getId(), 0L)));
+        }
+
+        if (reservas.limite() > 0) {
+            Map<Long, List<ReservaAnidada>> primeras = reservasJdbc.primeras(recurso, ids, reservas.desde(), reservas.limite());
+            dtos.forEach(dto -> dto.setReservas(primeras.getOrDefault(dto.getId(), List.of())));
+        }
+
+        return dtos;
+    }
+
+    public <T extends ConReservas> T completar(Recurso recurso, T dto, ReservasAnidadas reservas) {
+        completar(recurso, List.of(dto), reservas);
+        return dto;
+    }
+}
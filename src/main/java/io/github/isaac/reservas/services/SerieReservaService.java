@@ -0,0 +1,250 @@
+package io.github.isaac.reservas.services;
+
+import io.github.isaac.reservas.dtos.serie.SeriePostRequest;
+import io.github.isaac.reservas.dtos.serie.SerieResponse;
+import io.github.isaac.reservas.dtos.serie.SerieUpdateRequest;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.entities.SerieReserva;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.mappers.SerieMapper;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositorySerieReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository.NuevaReserva;
+import io.github.isaac.reservas.services.metricas.MetricasReservas;
+import io.github.isaac.reservas.services.metricas.MetricasReservas.Motivo;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Reservas periodicas: la serie se expande en el servidor a una reserva por ocurrencia,
+// se validan todas de una vez contra la ocupacion del aula y se guardan en la misma transaccion
+@Service
+@AllArgsConstructor
+@Timed("reservas.servicio")
+public class SerieReservaService {
+    // Limite para que una serie mal escrita no genere miles de reservas
+    private static final int MAX_OCURRENCIAS = 60;
+
+    private final RepositorySerieReserva series;
+    private final RepositoryReserva reservas;
+    private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final RepositoryUsuario usuarios;
+    private final ReservaJdbcRepository reservasJdbc;
+    private final SerieMapper serieMapper;
+    private final ApplicationEventPublisher eventos;
+    private final MetricasReservas metricas;
+
+    @Retryable(retryFor = TransientDataAccessException.class, maxAttempts = 3, backoff = @Backoff(delay = 50, multiplier = 2, random = true))
+    @Transactional
+    public SerieResponse addSerie(SeriePostRequest request) {
+        if (request.getFechaFin().isBefore(request.getFechaInicio())) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+
+        // Se busca las entidades referenciales
+        Horario horario = horarios.findById(request.getHorarioId())
+                .orElseThrow(() -> new EntityNotFoundException("Horario no encontrado"));
+
+        Aula aula = aulas.findById(request.getAulaId())
+                .orElseThrow(() -> new EntityNotFoundException("Aula no encontrado"));
+
+        Usuario usuario = usuarios.getReferenceById(request.getUsuarioId());
+
+        if (!usuarios.existsById(request.getUsuarioId())) {
+            throw new EntityNotFoundException("Usuario no encontrado");
+        }
+
+        if (request.getAsistentes() > aula.getCapacidad()) {
+            metricas.rechazo(Motivo.CAPACIDAD);
+            throw new IllegalArgumentException("Los asistentes no puede superar la capacidad del aula");
+        }
+
+        SerieReserva serie = serieMapper.toEntity(request);
+        serie.setAula(aula);
+        serie.setHorario(horario);
+        serie.setUsuario(usuario);
+
+        List<LocalDate> fechas = expandir(serie);
+
+        if (fechas.isEmpty()) {
+            throw new IllegalArgumentException("La serie no tiene ninguna ocurrencia");
+        }
+
+        if (fechas.size() > MAX_OCURRENCIAS) {
+            throw new IllegalArgumentException("La serie no puede tener mas de " + MAX_OCURRENCIAS + " ocurrencias");
+        }
+
+        // Una sola consulta con la ocupacion del aula en todo el rango de la serie
+        Map<LocalDate, List<ReservaSnapshot>> ocupacion = reservas
+                .findSnapshotsEnRango(Set.of(aula.getId()), fechas.getFirst(), fechas.getLast())
+                .stream()
+                .collect(Collectors.groupingBy(ReservaSnapshot::fecha));
+
+        List<LocalDate> conflictos = fechas.stream()
+                .filter(fecha -> ocupacion.getOrDefault(fecha, List.of()).stream()
+                        .anyMatch(otra -> otra.inicio().isBefore(horario.getFin()) && otra.fin().isAfter(horario.getInicio())))
+                .toList();
+
+        if (!conflictos.isEmpty()) {
+            metricas.rechazo(Motivo.SOLAPAMIENTO);
+            throw new IllegalArgumentException("Hay solapamiento en el tramo en las fechas: " + conflictos);
+        }
+
+        SerieReserva guardada = series.save(serie);
+
+        // Ids de la secuencia en un solo viaje y un INSERT agrupado para todas las ocurrencias
+        List<Long> ids = reservasJdbc.reservarIds(fechas.size());
+        List<NuevaReserva> nuevas = new ArrayList<>(fechas.size());
+
+        for (int i = 0; i < fechas.size(); i++) {
+            nuevas.add(new NuevaReserva(
+                    ids.get(i),
+                    fechas.get(i),
+                    guardada.getMotivo(),
+                    guardada.getAsistentes(),
+                    aula.getId(),
+                    horario.getId(),
+                    usuario.getId(),
+                    guardada.getId()
+            ));
+        }
+
+        reservasJdbc.insertar(nuevas);
+
+        List<ReservaSnapshot> ocurrencias = new ArrayList<>(fechas.size());
+
+        for (int i = 0; i < fechas.size(); i++) {
+            ReservaSnapshot ocurrencia = new ReservaSnapshot(
+                    ids.get(i),
+                    aula.getId(),
+                    horario.getId(),
+                    usuario.getId(),
+                    fechas.get(i),
+                    horario.getInicio(),
+                    horario.getFin(),
+                    guardada.getAsistentes()
+            );
+
+            ocurrencias.add(ocurrencia);
+            eventos.publishEvent(ReservaCambiada.creada(ocurrencia));
+        }
+
+        return toDto(guardada, ocurrencias);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SerieResponse> getSerie(Long id) {
+        return series.findById(id)
+                .map(serie -> toDto(serie, reservas.findSnapshotsBySerie(id)));
+    }
+
+    // Cambia motivo y asistentes de las ocurrencias que aun no han pasado
+    @Transactional
+    public SerieResponse updateSerie(Long id, SerieUpdateRequest request) {
+        SerieReserva serie = series.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Serie no encontrada"));
+
+        if (request.getAsistentes() != null && request.getAsistentes() > serie.getAula().getCapacidad()) {
+            throw new IllegalArgumentException("Los asistentes no puede superar la capacidad del aula");
+        }
+
+        serieMapper.updateSerie(request, serie);
+
+        LocalDate hoy = LocalDate.now();
+
+        // Estado anterior de cada ocurrencia para que los eventos lleven los asistentes previos
+        Map<Long, ReservaSnapshot> anteriores = reservas.findSnapshotsBySerie(id).stream()
+                .collect(Collectors.toMap(ReservaSnapshot::id, ocurrencia -> ocurrencia));
+
+        reservas.actualizarSerie(id, hoy, request.getMotivo(), request.getAsistentes());
+
+        List<ReservaSnapshot> ocurrencias = reservas.findSnapshotsBySerie(id);
+
+        ocurrencias.stream()
+                .filter(ocurrencia -> !ocurrencia.fecha().isBefore(hoy))
+                .forEach(ocurrencia -> eventos.publishEvent(ReservaCambiada.actualizada(anteriores.get(ocurrencia.id()), ocurrencia)));
+
+        return toDto(series.save(serie), ocurrencias);
+    }
+
+    // Cancela la serie completa con todas sus ocurrencias
+    @Transactional
+    public void deleteSerie(Long id) {
+        if (!series.existsById(id)) {
+            throw new EntityNotFoundException("Serie no encontrada");
+        }
+
+        List<ReservaSnapshot> ocurrencias = reservas.findSnapshotsBySerie(id);
+
+        reservas.deleteBySerie(id);
+        series.deleteById(id);
+
+        ocurrencias.forEach(ocurrencia -> eventos.publishEvent(ReservaCambiada.eliminada(ocurrencia)));
+    }
+
+    // Cancela una sola ocurrencia y la deja como excepcion de la serie
+    @Transactional
+    public void deleteOcurrencia(Long id, LocalDate fecha) {
+        SerieReserva serie = series.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Serie no encontrada"));
+
+        Reserva reserva = reservas.findBySerieAndFecha(id, fecha)
+                .orElseThrow(() -> new EntityNotFoundException("Ocurrencia no encontrada"));
+
+        ReservaSnapshot anterior = ReservaSnapshot.de(reserva);
+
+        reservas.delete(reserva);
+        serie.getExcepciones().add(fecha);
+
+        eventos.publishEvent(ReservaCambiada.eliminada(anterior));
+    }
+
+    // Fechas de la serie: el dia de la semana del horario cada N semanas, sin las excepciones
+    private List<LocalDate> expandir(SerieReserva serie) {
+        LocalDate fecha = serie.getFechaInicio()
+                .with(TemporalAdjusters.nextOrSame(serie.getHorario().getDiaSemana().toDayOfWeek()));
+
+        List<LocalDate> fechas = new ArrayList<>();
+
+        while (!fecha.isAfter(serie.getFechaFin()) && fechas.size() <= MAX_OCURRENCIAS) {
+            if (!serie.getExcepciones().contains(fecha)) {
+                fechas.add(fecha);
+            }
+
+            fecha = fecha.plusWeeks(serie.getRecurrencia().getSemanas());
+        }
+
+        return fechas;
+    }
+
+    private SerieResponse toDto(SerieReserva serie, List<ReservaSnapshot> ocurrencias) {
+        SerieResponse response = serieMapper.toDto(serie);
+        response.setOcurrencias(ocurrencias.stream().map(serieMapper::toOcurrencia).toList());
+
+        return response;
+    }
+}
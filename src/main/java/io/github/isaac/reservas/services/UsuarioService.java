@@ -1,13 +1,20 @@
 package io.github.isaac.reservas.services;
 
+import io.github.isaac.reservas.dtos.respuesta.ReservasAnidadas;
 import io.github.isaac.reservas.dtos.usuario.UsuarioPostRequest;
 import io.github.isaac.reservas.dtos.usuario.UsuarioResponse;
 import io.github.isaac.reservas.dtos.usuario.UsuarioUpdateRequest;
 import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.TipoCambio;
 import io.github.isaac.reservas.mappers.UsuarioMapper;
 import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.services.auth.CustomUserDetailsService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,17 +22,21 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("reservas.servicio")
 @AllArgsConstructor
 public class UsuarioService {
     private final RepositoryUsuario usuarios;
     private final UsuarioMapper usuarioMapper;
+    private final ReservasAnidadasService reservasAnidadas;
+    private final ApplicationEventPublisher eventos;
+    private final CustomUserDetailsService userDetailsService;
 
-    @Transactional
-    public List<UsuarioResponse> getUsuarios() {
-        return usuarios.findAll()
-                .stream()
-                .map(usuarioMapper::toDto)
-                .toList();
+    @Transactional(readOnly = true)
+    public List<UsuarioResponse> getUsuarios(ReservasAnidadas reservas) {
+        return reservasAnidadas.completar(
+                Recurso.USUARIO,
+                usuarios.findAll().stream().map(usuarioMapper::toDto).toList(),
+                reservas);
     }
 
     @Transactional
@@ -37,9 +48,13 @@ public class UsuarioService {
 
         Usuario usuarioAdded = usuarios.save(usuario);
 
-        usuarioAdded.setReservas(List.of());
+        eventos.publishEvent(new CatalogoCambiado(Recurso.USUARIO, usuarioAdded.getId(), TipoCambio.CREACION));
+
+        UsuarioResponse response = usuarioMapper.toDto(usuarioAdded);
+        response.setTotalReservas(0L);
+        response.setReservas(List.of());
 
-        return usuarioMapper.toDto(usuarioAdded);
+        return response;
     }
 
     @Transactional
@@ -47,20 +62,28 @@ public class UsuarioService {
         Usuario usuario = usuarios.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
 
+        // Puede cambiar el email, la contraseña o el estado, se invalida la sesion cacheada
+        userDetailsService.invalidar(usuario.getEmail());
+
         usuarioMapper.updateUsuarioProps(request, usuario);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.USUARIO, id, TipoCambio.ACTUALIZACION));
 
         return usuarioMapper.toDto(usuarios.save(usuario));
     }
 
-    public Optional<UsuarioResponse> getUsuario(Long id) {
-        return usuarios.findById(id).map(usuarioMapper::toDto);
+    @Transactional(readOnly = true)
+    public Optional<UsuarioResponse> getUsuario(Long id, ReservasAnidadas reservas) {
+        return usuarios.findById(id)
+                .map(usuarioMapper::toDto)
+                .map(dto -> reservasAnidadas.completar(Recurso.USUARIO, dto, reservas));
     }
 
     public void deleteUsuario(Long id) {
-        if (!usuarios.existsById(id)) {
-            throw new EntityNotFoundException("Usuario no encontrado");
-        }
+        String email = usuarios.findEmailById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
 
         usuarios.deleteById(id);
+        userDetailsService.invalidar(email);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.USUARIO, id, TipoCambio.ELIMINACION));
     }
 }
@@ -0,0 +1,280 @@
+package io.github.isaac.reservas.services.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import io.jsonwebtoken.Jwts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+// Claves HS256 con las que se firman y verifican los tokens. Cada token lleva en la cabecera
+// el kid de la clave que lo firmo, asi varias instancias y los reinicios aceptan los tokens
+// mientras la clave siga en el anillo. Origen de las claves, por orden:
+//   - reservas.jwt.fichero: fichero JSON compartido entre instancias. Se rota automaticamente
+//     cada reservas.jwt.rotacion y las claves antiguas se mantienen hasta que caducan sus tokens
+//   - reservas.jwt.claves: lista fija "kid:secreto-base64,..." donde la primera firma y el resto
+//     solo verifican. Se rota cambiando la configuracion
+//   - sin configurar: una clave aleatoria en memoria (solo desarrollo, un reinicio invalida los tokens)
+@Slf4j
+@Component
+public class AnilloClavesJwt {
+    // HS256 exige claves de al menos 256 bits
+    private static final int MIN_BYTES = 32;
+
+    private final Path fichero;
+    private final Duration rotacion;
+    private final Duration vigencia;
+    private final Duration propagacion;
+    private final ObjectMapper mapper;
+
+    private volatile Estado estado;
+    private FileTime leidoEn;
+
+    public AnilloClavesJwt(
+            @Value("${reservas.jwt.claves:}") String claves,
+            @Value("${reservas.jwt.fichero:}") String fichero,
+            @Value("${reservas.jwt.rotacion:P7D}") Duration rotacion,
+            @Value("${reservas.jwt.vigencia:PT24H}") Duration vigencia,
+            @Value("${reservas.jwt.recarga:PT1M}") Duration recarga,
+            ObjectMapper mapper) throws IOException {
+        this.fichero = fichero.isBlank() ? null : Path.of(fichero);
+        this.rotacion = rotacion;
+        this.vigencia = vigencia;
+        // Una clave nueva no firma hasta que todas las instancias han podido recargar el fichero
+        this.propagacion = recarga.multipliedBy(2);
+        this.mapper = mapper;
+
+        if (this.fichero != null) {
+            iniciarFichero();
+        } else if (!claves.isBlank()) {
+            estado = new Estado(parsear(claves), true);
+        } else {
+            log.warn("Sin reservas.jwt.fichero ni reservas.jwt.claves: se usa una clave temporal, los tokens no sobreviven a un reinicio");
+            estado = new Estado(List.of(new ClaveJwt(UUID.randomUUID().toString(), Jwts.SIG.HS256.key().build(), Instant.now())), true);
+        }
+
+        log.info("Anillo de claves JWT con {} claves, firma con {}", estado.claves().size(), activa().kid());
+    }
+
+    // Clave con la que se firman los tokens nuevos
+    public ClaveJwt activa() {
+        Estado actual = estado;
+
+        if (actual.fija()) {
+            return actual.claves().getFirst();
+        }
+
+        // La mas reciente que ya ha tenido tiempo de llegar a todas las instancias
+        Instant limite = Instant.now().minus(propagacion);
+
+        return actual.claves().stream()
+                .filter(clave -> !clave.creada().isAfter(limite))
+                .max(Comparator.comparing(ClaveJwt::creada))
+                .orElse(actual.claves().getFirst());
+    }
+
+    // Claves en formato JWK para el decoder, que las selecciona por kid
+    public JWKSet getJwks() {
+        return estado.jwks();
+    }
+
+    // Recarga el fichero si otra instancia lo ha cambiado y rota la clave cuando toca
+    @Scheduled(fixedDelayString = "${reservas.jwt.recarga:PT1M}", initialDelayString = "${reservas.jwt.recarga:PT1M}")
+    public void revisar() {
+        if (fichero == null) {
+            return;
+        }
+
+        try {
+            if (!Files.getLastModifiedTime(fichero).equals(leidoEn)) {
+                estado = new Estado(leer(), false);
+            }
+
+            if (debeRotar(estado.claves())) {
+                conBloqueo(this::rotar);
+            }
+        } catch (IOException e) {
+            log.error("No se pudo actualizar el anillo de claves JWT desde {}", fichero, e);
+        }
+    }
+
+    private void iniciarFichero() throws IOException {
+        conBloqueo(() -> {
+            if (Files.exists(fichero)) {
+                estado = new Estado(leer(), false);
+            } else {
+                // La primera clave firma desde el principio
+                guardar(List.of(nueva(Instant.now().minus(propagacion))));
+                log.info("Creado el anillo de claves JWT en {}", fichero);
+            }
+        });
+    }
+
+    // Se ejecuta con el bloqueo del fichero: otra instancia puede haber rotado justo antes
+    private void rotar() throws IOException {
+        List<ClaveJwt> claves = new ArrayList<>(leer());
+
+        if (!debeRotar(claves)) {
+            estado = new Estado(claves, false);
+            return;
+        }
+
+        ClaveJwt nueva = nueva(Instant.now());
+        claves.add(nueva);
+
+        guardar(vigentes(claves));
+        log.info("Rotada la clave JWT, la nueva clave {} firmara a partir de {}", nueva.kid(), nueva.creada().plus(propagacion));
+    }
+
+    private boolean debeRotar(List<ClaveJwt> claves) {
+        Instant ultima = claves.stream().map(ClaveJwt::creada).max(Comparator.naturalOrder()).orElse(Instant.EPOCH);
+
+        return ultima.plus(rotacion).isBefore(Instant.now());
+    }
+
+    // Una clave deja de firmar cuando la siguiente se activa y se conserva hasta que caducan
+    // los tokens que firmo
+    private List<ClaveJwt> vigentes(List<ClaveJwt> claves) {
+        List<ClaveJwt> ordenadas = claves.stream().sorted(Comparator.comparing(ClaveJwt::creada)).toList();
+        List<ClaveJwt> vigentes = new ArrayList<>();
+        Instant ahora = Instant.now();
+
+        for (int i = 0; i < ordenadas.size(); i++) {
+            boolean ultima = i == ordenadas.size() - 1;
+
+            if (ultima || ordenadas.get(i + 1).creada().plus(propagacion).plus(vigencia).isAfter(ahora)) {
+                vigentes.add(ordenadas.get(i));
+            }
+        }
+
+        return vigentes;
+    }
+
+    private List<ClaveJwt> leer() throws IOException {
+        FileTime modificado = Files.getLastModifiedTime(fichero);
+        FicheroClaves contenido = mapper.readValue(fichero.toFile(), FicheroClaves.class);
+
+        if (contenido.claves() == null || contenido.claves().isEmpty()) {
+            throw new IllegalStateException("El fichero de claves JWT " + fichero + " no tiene claves");
+        }
+
+        List<ClaveJwt> claves = contenido.claves().stream()
+                .map(guardada -> new ClaveJwt(guardada.kid(), secreto(guardada.kid(), guardada.secreto()), guardada.creada()))
+                .toList();
+
+        leidoEn = modificado;
+        return claves;
+    }
+
+    // Se escribe en un temporal y se renombra para que nadie lea el fichero a medias
+    private void guardar(List<ClaveJwt> claves) throws IOException {
+        FicheroClaves contenido = new FicheroClaves(claves.stream()
+                .map(clave -> new ClaveGuardada(clave.kid(), Base64.getEncoder().encodeToString(clave.clave().getEncoded()), clave.creada()))
+                .toList());
+
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        Files.write(temporal, mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(contenido));
+        restringirPermisos(temporal);
+        Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        estado = new Estado(claves, false);
+        leidoEn = Files.getLastModifiedTime(fichero);
+    }
+
+    // Bloqueo entre procesos para que dos instancias no creen o roten el anillo a la vez
+    private void conBloqueo(Operacion operacion) throws IOException {
+        Path cerrojo = fichero.resolveSibling(fichero.getFileName() + ".lock");
+
+        try (FileChannel canal = FileChannel.open(cerrojo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = canal.lock()) {
+            operacion.ejecutar();
+        }
+    }
+
+    private static void restringirPermisos(Path ruta) throws IOException {
+        try {
+            Files.setPosixFilePermissions(ruta, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de ficheros sin permisos POSIX
+        }
+    }
+
+    private static ClaveJwt nueva(Instant creada) {
+        return new ClaveJwt(UUID.randomUUID().toString(), Jwts.SIG.HS256.key().build(), creada);
+    }
+
+    private static List<ClaveJwt> parsear(String claves) {
+        List<ClaveJwt> resultado = new ArrayList<>();
+
+        for (String entrada : claves.split(",")) {
+            String[] partes = entrada.trim().split(":", 2);
+
+            if (partes.length != 2 || partes[0].isBlank()) {
+                throw new IllegalStateException("reservas.jwt.claves debe tener el formato kid:secreto-base64,...");
+            }
+
+            resultado.add(new ClaveJwt(partes[0], secreto(partes[0], partes[1]), Instant.EPOCH));
+        }
+
+        return resultado;
+    }
+
+    private static SecretKey secreto(String kid, String base64) {
+        byte[] bytes = Base64.getDecoder().decode(base64.trim());
+
+        if (bytes.length < MIN_BYTES) {
+            throw new IllegalStateException("La clave JWT " + kid + " debe tener al menos " + MIN_BYTES + " bytes");
+        }
+
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    public record ClaveJwt(String kid, SecretKey clave, Instant creada) {
+    }
+
+    // Claves inmutables junto a su JWKSet, que se construye una vez por cambio y no por peticion
+    private record Estado(List<ClaveJwt> claves, boolean fija, JWKSet jwks) {
+        Estado(List<ClaveJwt> claves, boolean fija) {
+            this(List.copyOf(claves), fija, new JWKSet(claves.stream()
+                    .map(clave -> (JWK) new OctetSequenceKey.Builder(clave.clave())
+                            .keyID(clave.kid())
+                            .algorithm(JWSAlgorithm.HS256)
+                            .build())
+                    .toList()));
+        }
+    }
+
+    private record FicheroClaves(List<ClaveGuardada> claves) {
+    }
+
+    private record ClaveGuardada(String kid, String secreto, Instant creada) {
+    }
+
+    @FunctionalInterface
+    private interface Operacion {
+        void ejecutar() throws IOException;
+    }
+}
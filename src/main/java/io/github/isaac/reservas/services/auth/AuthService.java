@@ -3,13 +3,17 @@ package io.github.isaac.reservas.services.auth;
 import io.github.isaac.reservas.dtos.auth.ChangePasswordRequest;
 import io.github.isaac.reservas.dtos.auth.LoginRequest;
 import io.github.isaac.reservas.dtos.auth.RegisterRequest;
-import io.github.isaac.reservas.dtos.usuario.UsuarioResponse;
 import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.TipoCambio;
 import io.github.isaac.reservas.mappers.UsuarioMapper;
 import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,42 +21,51 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Map;
 
 @Service
+@Timed("reservas.servicio")
 @AllArgsConstructor
 public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JWTService jwtService;
     private final RepositoryUsuario usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final ControlAdmisionLogin admision;
 
     private final UsuarioMapper usuarioMapper;
+    private final ApplicationEventPublisher eventos;
 
-    public String verify(LoginRequest request) throws BadCredentialsException, Exception {
-        Authentication authentication = authenticationManager.authenticate(
+    // La comprobacion con BCrypt pasa por el control de admision (limites por cuenta y por IP,
+    // donde solo cuentan los intentos fallidos)
+    public String verify(LoginRequest request, String ip) throws BadCredentialsException, Exception {
+        Authentication authentication = admision.autenticar(ip, request.getEmail(), () -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+        ));
 
         return jwtService.generateToken(authentication);
     }
 
-    public void register(RegisterRequest request) throws EntityExistsException {
+    public void register(RegisterRequest request, String ip) throws EntityExistsException, Exception {
         if (usuarioRepository.existsByEmail(request.getEmail())) {
             throw new EntityExistsException("Un usuario con ese correo ya existe!");
         }
 
+        String password = admision.ejecutar(ip, request.getEmail(), () -> passwordEncoder.encode(request.getPassword()));
         Usuario usuario = new Usuario();
 
         usuario.setEmail(request.getEmail());
-        usuario.setPassword(passwordEncoder.encode(request.getPassword()));
+        usuario.setPassword(password);
         usuario.setNombre(request.getNombre());
         usuario.setRoles("ROLE_PROFESOR");
         usuario.setEnabled(true);
 
-        usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        eventos.publishEvent(new CatalogoCambiado(Recurso.USUARIO, guardado.getId(), TipoCambio.CREACION));
     }
 
     public Map<String, Object> perfil(Authentication authentication) {
@@ -66,12 +79,13 @@ public class AuthService {
     }
 
     // Tenemos que hecharle vistazo al autentication manager
+    @Transactional
     public void changePassword(Authentication authentication, ChangePasswordRequest request)
             throws EntityNotFoundException, BadCredentialsException {
 
-        // Se busca usuario
+        // Se busca usuario, solo con sus credenciales
         String email = authentication.getName();
-        Usuario usuario = usuarioRepository.findByEmail(email)
+        UsuarioPrincipal usuario = usuarioRepository.findPrincipalByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado"));
 
 
@@ -80,9 +94,8 @@ public class AuthService {
             throw new BadCredentialsException("Las contraseña antigua no coincide con su cuenta");
         }
 
-        usuario.setPassword(passwordEncoder.encode(request.getNewPassword()));
-
-        usuarioRepository.save(usuario);
+        usuarioRepository.actualizarPassword(usuario.getId(), passwordEncoder.encode(request.getNewPassword()));
+        userDetailsService.invalidar(email);
 
     }
 }
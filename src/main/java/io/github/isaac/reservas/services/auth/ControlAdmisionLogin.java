@@ -0,0 +1,220 @@
+package io.github.isaac.reservas.services.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.isaac.reservas.exceptions.DemasiadasPeticionesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Control de admision del login y el registro. BCrypt consume CPU a proposito y una avalancha de
+// logins (todos a las 8:00 o un ataque de credenciales) dejaria sin CPU al resto de endpoints:
+//   - cubos de fichas por IP y por cuenta, que rechazan antes de calcular ningun hash. En el
+//     login la IP solo gasta fichas con los intentos fallidos: muchos profesores entran a la vez
+//     desde la misma IP (NAT del centro) y sus logins correctos no deben agotarla
+//   - un executor propio con hilos y cola limitados donde se ejecuta todo el trabajo con BCrypt
+// Lo que no cabe se rechaza al momento con 429 en lugar de hacer esperar a la peticion
+@Component
+public class ControlAdmisionLogin {
+    public enum Motivo {
+        IP,
+        CUENTA,
+        SATURADO
+    }
+
+    private final Cubos porIp;
+    private final Cubos porCuenta;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService hashes;
+    private final Duration espera;
+
+    private final Counter aceptados;
+    private final Map<Motivo, Counter> rechazos = new EnumMap<>(Motivo.class);
+
+    public ControlAdmisionLogin(
+            @Value("${reservas.auth.hash.hilos:0}") int hilos,
+            @Value("${reservas.auth.hash.cola:32}") int cola,
+            @Value("${reservas.auth.hash.espera:PT5S}") Duration espera,
+            @Value("${reservas.auth.ip.capacidad:100}") int capacidadIp,
+            @Value("${reservas.auth.ip.por-minuto:100}") int porMinutoIp,
+            @Value("${reservas.auth.cuenta.capacidad:5}") int capacidadCuenta,
+            @Value("${reservas.auth.cuenta.por-minuto:5}") int porMinutoCuenta,
+            MeterRegistry registry) {
+        // Por defecto la mitad de los nucleos, el resto queda para las demas peticiones
+        int limite = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                limite, limite, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "bcrypt-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        // Publica executor_queued_tasks, executor_active_threads, executor_seconds, etc. con name=bcrypt
+        this.hashes = ExecutorServiceMetrics.monitor(registry, executor, "bcrypt");
+        this.espera = espera;
+
+        this.porIp = new Cubos(capacidadIp, porMinutoIp);
+        this.porCuenta = new Cubos(capacidadCuenta, porMinutoCuenta);
+
+        this.aceptados = Counter.builder("reservas.auth.admision")
+                .description("Intentos de login y registro admitidos y rechazados por motivo")
+                .tag("resultado", "aceptado")
+                .tag("motivo", "ninguno")
+                .register(registry);
+
+        for (Motivo motivo : Motivo.values()) {
+            rechazos.put(motivo, Counter.builder("reservas.auth.admision")
+                    .description("Intentos de login y registro admitidos y rechazados por motivo")
+                    .tag("resultado", "rechazado")
+                    .tag("motivo", motivo.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    // Login: la IP debe tener fichas pero solo gasta una si las credenciales no son validas
+    public <T> T autenticar(String ip, String cuenta, Callable<T> trabajo) throws Exception {
+        if (ip != null) {
+            comprobar(porIp, ip, Motivo.IP, false);
+        }
+
+        try {
+            return ejecutar(null, cuenta, trabajo);
+        } catch (AuthenticationException e) {
+            if (ip != null) {
+                porIp.consumir(ip, true);
+            }
+
+            throw e;
+        }
+    }
+
+    // Ejecuta el trabajo con BCrypt si la IP y la cuenta tienen fichas y hay hueco en el executor
+    public <T> T ejecutar(String ip, String cuenta, Callable<T> trabajo) throws Exception {
+        if (ip != null) {
+            comprobar(porIp, ip, Motivo.IP, true);
+        }
+
+        if (cuenta != null) {
+            comprobar(porCuenta, cuenta.toLowerCase(Locale.ROOT), Motivo.CUENTA, true);
+        }
+
+        Future<T> resultado;
+
+        try {
+            resultado = hashes.submit(trabajo);
+        } catch (RejectedExecutionException e) {
+            throw rechazar(Motivo.SATURADO, 1);
+        }
+
+        aceptados.increment();
+
+        try {
+            return resultado.get(espera.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            throw rechazar(Motivo.SATURADO, 1);
+        } catch (ExecutionException e) {
+            // Se relanza la excepcion original (BadCredentialsException, EntityExistsException...)
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+
+            throw e;
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    private void comprobar(Cubos cubos, String clave, Motivo motivo, boolean gastar) {
+        long espera = cubos.consumir(clave, gastar);
+
+        if (espera > 0) {
+            throw rechazar(motivo, espera);
+        }
+    }
+
+    private DemasiadasPeticionesException rechazar(Motivo motivo, long segundos) {
+        rechazos.get(motivo).increment();
+
+        return new DemasiadasPeticionesException("Demasiados intentos, vuelve a intentarlo en " + segundos + " segundos", segundos);
+    }
+
+    // Cubos de fichas por clave: cada intento gasta una ficha y se recargan a ritmo constante.
+    // Los cubos sin uso caducan para que un ataque con muchas IPs no llene la memoria
+    private static class Cubos {
+        private final int capacidad;
+        private final double fichasPorNano;
+        private final Cache<String, Cubo> cubos;
+
+        Cubos(int capacidad, int porMinuto) {
+            this.capacidad = capacidad;
+            this.fichasPorNano = porMinuto / (double) TimeUnit.MINUTES.toNanos(1);
+            this.cubos = Caffeine.newBuilder()
+                    .maximumSize(100_000)
+                    .expireAfterAccess(Duration.ofMinutes(10))
+                    .build();
+        }
+
+        // Devuelve 0 si habia ficha o los segundos hasta la siguiente. Con gastar=false solo se
+        // comprueba
+        long consumir(String clave, boolean gastar) {
+            return cubos.get(clave, c -> new Cubo(capacidad)).consumir(capacidad, fichasPorNano, gastar);
+        }
+    }
+
+    private static class Cubo {
+        private double fichas;
+        private long actualizado = System.nanoTime();
+
+        Cubo(int capacidad) {
+            this.fichas = capacidad;
+        }
+
+        synchronized long consumir(int capacidad, double fichasPorNano, boolean gastar) {
+            long ahora = System.nanoTime();
+            fichas = Math.min(capacidad, fichas + (ahora - actualizado) * fichasPorNano);
+            actualizado = ahora;
+
+            if (fichas >= 1) {
+                if (gastar) {
+                    fichas--;
+                }
+
+                return 0;
+            }
+
+            return Math.max(1, (long) Math.ceil((1 - fichas) / fichasPorNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package io.github.isaac.reservas.services.auth;
 
+import io.github.isaac.reservas.config.CacheConfig;
+import io.github.isaac.reservas.config.LecturaPrimaria;
 import io.github.isaac.reservas.repositories.RepositoryUsuario;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -13,12 +17,19 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final RepositoryUsuario usuarioRepository;
 
+    // Spring Security llama a este método al hacer login, el resultado se guarda en una
+    // cache acotada y con caducidad que se invalida al cambiar contraseña, roles o estado
     @Override
+    @Cacheable(cacheNames = CacheConfig.USUARIOS_DETALLES, key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // Spring Security llama a este método al hacer login
-        return usuarioRepository.findByEmail(email)
+        // De la primaria: un usuario recien registrado puede no estar aun en la replica
+        return LecturaPrimaria.ejecutar(() -> usuarioRepository.findPrincipalByEmail(email))
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + email));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USUARIOS_DETALLES, key = "#email")
+    public void invalidar(String email) {
+        // La anotacion se encarga de quitar la entrada de la cache
+    }
 
 }
@@ -1,24 +1,25 @@
 package io.github.isaac.reservas.services.auth;
 
 import io.jsonwebtoken.Jwts;
-import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
-import io.github.isaac.reservas.entities.Usuario;
 
-import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
 import java.util.stream.Collectors;
 
 @Service
 public class JWTService {
 
-    private final SecretKey secretKey;
+    private final AnilloClavesJwt anillo;
+    private final Duration vigencia;
 
-    public JWTService() {
-        // Genera automáticamente una clave secreta segura de 256 bits
-        this.secretKey = Jwts.SIG.HS256.key().build();
+    public JWTService(AnilloClavesJwt anillo, @Value("${reservas.jwt.vigencia:PT24H}") Duration vigencia) {
+        // Las claves vienen del anillo compartido entre instancias y reinicios
+        this.anillo = anillo;
+        this.vigencia = vigencia;
     }
 
     // Genera un token JWT para un usuario autenticado
@@ -28,22 +29,20 @@ public class JWTService {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        Usuario usuario = (Usuario) authentication.getPrincipal();
+        UsuarioPrincipal usuario = (UsuarioPrincipal) authentication.getPrincipal();
         Long userId = usuario.getId();
-        
+        AnilloClavesJwt.ClaveJwt clave = anillo.activa();
+
         // Construir el token JWT
         return Jwts.builder()
+                .header().keyId(clave.kid()).and()                             // Clave con la que se firma
                 .subject(authentication.getName())                             // Email del usuario
                 .issuer("reserva-api")                                      // Quién emite el token
                 .issuedAt(new Date())                                          // Cuándo se creó
-                .expiration(new Date(System.currentTimeMillis() + 86400000))   // Expira en 24h
+                .expiration(new Date(System.currentTimeMillis() + vigencia.toMillis()))   // Expira en 24h por defecto
                 .claim("roles", roles)                                      // Roles del usuario
                 .claim("userId", userId)
-                .signWith(secretKey)                                           // Firmar con clave secreta
+                .signWith(clave.clave(), Jwts.SIG.HS256)                       // Firmar con la clave activa
                 .compact();                                                    // Generar String del token
     }
-
-    public SecretKey getSecretKey() {
-        return secretKey;
-    }
 }
@@ -0,0 +1,35 @@
+package io.github.isaac.reservas.services.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Principal de seguridad con solo los datos necesarios para autenticar, se construye con
+// una proyeccion para no cargar la entidad Usuario (y su lista de reservas) en cada login.
+// No implementa CredentialsContainer para que Spring no borre el hash de la instancia cacheada
+@Getter
+@AllArgsConstructor
+public class UsuarioPrincipal implements UserDetails {
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String roles;
+    private final boolean enabled;
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Arrays.stream(roles.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.isaac.reservas.services.cache;
+
+import io.github.isaac.reservas.config.CacheConfig;
+import io.github.isaac.reservas.dtos.aula.AulaResponse;
+import io.github.isaac.reservas.dtos.horario.HorarioResponse;
+import io.github.isaac.reservas.mappers.AulaMapper;
+import io.github.isaac.reservas.mappers.HorarioMapper;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+// Aulas y horarios tal como estan en sus tablas, sin el total ni las reservas anidadas, que los
+// servicios completan en cada peticion sobre una copia. La clave lleva la version de la coleccion
+// (VersionesColecciones): una escritura en el catalogo, en esta o en otra instancia, hace que la
+// siguiente lectura cargue de nuevo y las entradas antiguas caducan solas. Las reservas no
+// cambian ninguna entrada, por eso no hace falta invalidar nada al reservar.
+// La version se lee antes que los datos en la misma base de datos, asi una entrada nunca guarda
+// datos mas antiguos que su version
+@Component
+@RequiredArgsConstructor
+public class CatalogosBase {
+    private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final AulaMapper aulaMapper;
+    private final HorarioMapper horarioMapper;
+
+    @Cacheable(cacheNames = CacheConfig.AULAS, key = "#version")
+    public List<AulaResponse> aulas(long version) {
+        return aulas.findAll().stream().map(aulaMapper::toDto).toList();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.AULA, unless = "#result == null")
+    public Optional<AulaResponse> aula(Long id, long version) {
+        return aulas.findById(id).map(aulaMapper::toDto);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.HORARIOS, key = "#version")
+    public List<HorarioResponse> horarios(long version) {
+        return horarios.findAll().stream().map(horarioMapper::toDto).toList();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.HORARIO, unless = "#result == null")
+    public Optional<HorarioResponse> horario(Long id, long version) {
+        return horarios.findById(id).map(horarioMapper::toDto);
+    }
+}
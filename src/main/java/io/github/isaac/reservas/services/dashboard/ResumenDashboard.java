@@ -0,0 +1,435 @@
+package io.github.isaac.reservas.services.dashboard;
+
+import io.github.isaac.reservas.config.LecturaPrimaria;
+import io.github.isaac.reservas.dtos.dashboard.Conteo;
+import io.github.isaac.reservas.dtos.dashboard.ResumenResponse;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.enums.TipoHorario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.events.ReservasArchivadas;
+import io.github.isaac.reservas.events.TipoCambio;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.repositories.SincronizacionJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Contadores en memoria del resumen del panel. Las escrituras de reservas y las altas de usuarios
+// los actualizan tras el commit con los eventos que publican los servicios, asi leer el resumen no
+// recorre ninguna tabla. Periodicamente (y poco despues de un cambio de catalogo) se recalculan en
+// la primaria con unas pocas consultas agregadas para corregir cualquier desviacion.
+// Cada cambio lleva el id de su transaccion y cada recalculo la foto de la base de datos en la que
+// se hizo (pg_current_snapshot). Un cambio que la foto ya incluye no se vuelve a sumar, llegue
+// durante el recalculo o despues, y uno que la foto no incluye se suma aunque llegue mientras se
+// recalcula
+@Slf4j
+@Component
+public class ResumenDashboard {
+    // Dias que se muestran a partir de hoy
+    private static final int DIAS = 14;
+
+    private final RepositoryReserva reservas;
+    private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final RepositoryUsuario usuarios;
+    private final SincronizacionJdbcRepository transacciones;
+    private final TransactionTemplate lectura;
+    private final TaskScheduler programador;
+    private final Duration retraso;
+
+    // Los cambios se aplican con el bloqueo de lectura (a la vez entre ellos). El de escritura solo
+    // se toma un momento al empezar y al terminar cada recalculo, la carga no bloquea los cambios
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private volatile Contadores contadores = new Contadores(null);
+
+    // Cambios recibidos durante el recalculo en curso, null si no hay ninguno
+    private Queue<Cambio> durante;
+
+    private final AtomicBoolean programada = new AtomicBoolean();
+
+    public ResumenDashboard(RepositoryReserva reservas, RepositoryAula aulas, RepositoryHorario horarios,
+                            RepositoryUsuario usuarios, SincronizacionJdbcRepository transacciones,
+                            PlatformTransactionManager gestor, TaskScheduler programador,
+                            @Value("${reservas.dashboard.retraso-reconciliacion:PT2S}") Duration retraso) {
+        this.reservas = reservas;
+        this.aulas = aulas;
+        this.horarios = horarios;
+        this.usuarios = usuarios;
+        this.transacciones = transacciones;
+        this.programador = programador;
+        this.retraso = retraso;
+
+        // Todas las consultas de la reconciliacion ven la misma foto de la base de datos. Transaccion
+        // nueva porque tambien se llama desde listeners tras el commit de otra transaccion
+        this.lectura = new TransactionTemplate(gestor);
+        this.lectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lectura.setReadOnly(true);
+        this.lectura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public ResumenResponse getResumen() {
+        Contadores actual = contadores;
+        LocalDate hoy = LocalDate.now();
+
+        List<ResumenResponse.Dia> proximos = new ArrayList<>(DIAS);
+
+        for (int i = 0; i < DIAS; i++) {
+            LocalDate fecha = hoy.plusDays(i);
+            Uso uso = actual.porDia.get(fecha);
+
+            proximos.add(new ResumenResponse.Dia(fecha, uso != null ? uso.reservas.get() : 0, uso != null ? uso.asistentes.get() : 0));
+        }
+
+        List<ResumenResponse.Aula> porAula = actual.porAula.entrySet().stream()
+                .map(entrada -> new ResumenResponse.Aula(
+                        entrada.getKey(),
+                        entrada.getValue().nombre,
+                        entrada.getValue().uso.reservas.get(),
+                        entrada.getValue().uso.asistentes.get()))
+                .sorted(Comparator.comparingLong(ResumenResponse.Aula::reservas).reversed())
+                .toList();
+
+        Map<TipoHorario, ResumenResponse.Uso> porTipo = new EnumMap<>(TipoHorario.class);
+        actual.porTipo.forEach((tipo, uso) -> porTipo.put(tipo, uso.toDto()));
+
+        ResumenResponse.Dia deHoy = proximos.getFirst();
+
+        return new ResumenResponse(
+                actual.total.reservas.get(),
+                actual.total.asistentes.get(),
+                actual.aulas.get(),
+                actual.horarios.get(),
+                actual.usuarios.get(),
+                new ResumenResponse.Uso(deHoy.reservas(), deHoy.asistentes()),
+                proximos,
+                porAula,
+                porTipo,
+                actual.reconciliado
+        );
+    }
+
+    // Antes del commit, para conocer el id de la transaccion. Los cambios se aplican tras el commit
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onReservaCambiada(ReservaCambiada evento) {
+        registrar(actual -> {
+            if (evento.anterior() != null) {
+                actual.sumar(evento.anterior(), -1);
+            }
+
+            if (evento.actual() != null) {
+                actual.sumar(evento.actual(), 1);
+            }
+        });
+    }
+
+    // Un alta de usuario solo suma al total
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUsuarioCreado(CatalogoCambiado evento) {
+        if (evento.recurso() == Recurso.USUARIO && evento.tipo() == TipoCambio.CREACION && evento.id() != null) {
+            registrar(actual -> actual.usuarios.incrementAndGet());
+        }
+    }
+
+    // El resto de cambios de catalogo (nombres de aulas, tipos de horario, borrados en cascada,
+    // importaciones) se resuelven recalculando, fuera del hilo de la peticion y una sola vez para
+    // todos los que lleguen seguidos (una importacion confirma un lote cada 500 filas)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoCambiado(CatalogoCambiado evento) {
+        if (evento.recurso() == Recurso.USUARIO
+                && (evento.tipo() == TipoCambio.ACTUALIZACION || (evento.tipo() == TipoCambio.CREACION && evento.id() != null))) {
+            return;
+        }
+
+        programarReconciliacion();
+    }
+
+    // Las reservas archivadas dejan de contar en los totales
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservasArchivadas(ReservasArchivadas evento) {
+        programarReconciliacion();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${reservas.dashboard.reconciliacion:PT10M}", initialDelayString = "${reservas.dashboard.reconciliacion:PT10M}")
+    public void reconciliar() {
+        Queue<Cambio> recibidos = new ConcurrentLinkedQueue<>();
+        Contadores nuevos;
+
+        bloqueo.writeLock().lock();
+
+        try {
+            // Solo un recalculo a la vez. Si ya hay uno, su foto podria ser anterior al cambio que
+            // ha pedido este, se repite al terminar
+            if (durante != null) {
+                programarReconciliacion();
+                return;
+            }
+
+            durante = recibidos;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+
+        try {
+            // En la primaria: la replica podria no tener aun cambios que ya se han sumado
+            nuevos = LecturaPrimaria.ejecutar(() -> lectura.execute(estado -> cargar()));
+        } catch (RuntimeException e) {
+            log.error("No se pudieron reconciliar los contadores del panel", e);
+            nuevos = null;
+        }
+
+        bloqueo.writeLock().lock();
+
+        try {
+            durante = null;
+
+            if (nuevos == null) {
+                return;
+            }
+
+            Contadores anteriores = contadores;
+
+            // Los cambios recibidos mientras se cargaba que la foto no incluye
+            for (Cambio cambio : recibidos) {
+                nuevos.aplicar(cambio);
+            }
+
+            // Tras un borrado en cascada la diferencia es normal, en otro caso indica eventos perdidos
+            if (anteriores.reconciliado != null && anteriores.total.reservas.get() != nuevos.total.reservas.get()) {
+                log.info("Contadores del panel corregidos: {} reservas en memoria y {} en la base de datos",
+                        anteriores.total.reservas.get(), nuevos.total.reservas.get());
+            }
+
+            contadores = nuevos;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void programarReconciliacion() {
+        if (programada.compareAndSet(false, true)) {
+            programador.schedule(() -> {
+                programada.set(false);
+                reconciliar();
+            }, Instant.now().plus(retraso));
+        }
+    }
+
+    // Junta los cambios de la transaccion en curso y los aplica tras su commit con su id. Sin
+    // transaccion se aplican al momento sin id (se suman siempre)
+    private void registrar(Consumer<Contadores> cambio) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            aplicar(new Cambio(null, List.of(cambio)));
+            return;
+        }
+
+        Cambio pendiente = (Cambio) TransactionSynchronizationManager.getResource(this);
+
+        if (pendiente == null) {
+            Cambio nuevo = new Cambio(transacciones.transaccionActual(), new ArrayList<>());
+            TransactionSynchronizationManager.bindResource(this, nuevo);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(nuevo);
+                }
+
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResumenDashboard.this);
+                }
+            });
+            pendiente = nuevo;
+        }
+
+        pendiente.cambios().add(cambio);
+    }
+
+    private void aplicar(Cambio cambio) {
+        bloqueo.readLock().lock();
+
+        try {
+            if (durante != null) {
+                durante.add(cambio);
+            }
+
+            contadores.aplicar(cambio);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private Contadores cargar() {
+        // Primera consulta de la transaccion: fija la foto que veran todas las demas
+        Contadores nuevos = new Contadores(Foto.de(transacciones.fotoActual()));
+
+        Conteo.Total total = reservas.contarTotal();
+        nuevos.total.set(total.reservas(), total.asistentes());
+
+        // Los dias pasados no se muestran, se descartan al reconciliar
+        for (Conteo.PorFecha dia : reservas.contarPorFecha(LocalDate.now())) {
+            nuevos.porDia.computeIfAbsent(dia.fecha(), f -> new Uso()).set(dia.reservas(), dia.asistentes());
+        }
+
+        for (Conteo.PorTipo tipo : reservas.contarPorTipo()) {
+            nuevos.porTipo.get(tipo.tipo()).set(tipo.reservas(), tipo.asistentes());
+        }
+
+        for (Conteo.PorAula aula : aulas.contarPorAula()) {
+            UsoAula uso = new UsoAula(aula.nombre());
+            uso.uso.set(aula.reservas(), aula.asistentes());
+            nuevos.porAula.put(aula.aulaId(), uso);
+        }
+
+        for (Horario horario : horarios.findAll()) {
+            nuevos.tipos.put(horario.getId(), horario.getTipo());
+        }
+
+        nuevos.aulas.set(nuevos.porAula.size());
+        nuevos.horarios.set(nuevos.tipos.size());
+        nuevos.usuarios.set(usuarios.count());
+        nuevos.reconciliado = Instant.now();
+
+        return nuevos;
+    }
+
+    // Cambios de una transaccion confirmada, transaccion null si no se conoce
+    private record Cambio(Long transaccion, List<Consumer<Contadores>> cambios) {
+    }
+
+    // Foto de PostgreSQL: estan confirmadas en ella las transacciones anteriores a xmin y las
+    // anteriores a xmax que no estaban en curso (xip)
+    private record Foto(long xmin, long xmax, Set<Long> enCurso) {
+        static Foto de(String texto) {
+            String[] partes = texto.split(":", -1);
+            Set<Long> enCurso = partes[2].isEmpty()
+                    ? Set.of()
+                    : Arrays.stream(partes[2].split(",")).map(Long::valueOf).collect(Collectors.toUnmodifiableSet());
+
+            return new Foto(Long.parseLong(partes[0]), Long.parseLong(partes[1]), enCurso);
+        }
+
+        boolean incluye(long transaccion) {
+            return transaccion < xmin || (transaccion < xmax && !enCurso.contains(transaccion));
+        }
+    }
+
+    private static class Contadores {
+        // Foto en la que se cargaron, null antes del primer recalculo
+        private final Foto foto;
+        private final Uso total = new Uso();
+        private final Map<LocalDate, Uso> porDia = new ConcurrentHashMap<>();
+        private final Map<Long, UsoAula> porAula = new ConcurrentHashMap<>();
+        private final Map<TipoHorario, Uso> porTipo = new EnumMap<>(TipoHorario.class);
+        private final Map<Long, TipoHorario> tipos = new ConcurrentHashMap<>();
+        private final AtomicLong aulas = new AtomicLong();
+        private final AtomicLong horarios = new AtomicLong();
+        private final AtomicLong usuarios = new AtomicLong();
+        private Instant reconciliado;
+
+        Contadores(Foto foto) {
+            this.foto = foto;
+
+
+            // Todas las claves existen desde el principio, el EnumMap no se modifica despues
+            for (TipoHorario tipo : TipoHorario.values()) {
+                porTipo.put(tipo, new Uso());
+            }
+        }
+
+        // Un cambio que la foto ya incluye se ignora, ya esta en los totales cargados
+        void aplicar(Cambio cambio) {
+            if (foto != null && cambio.transaccion() != null && foto.incluye(cambio.transaccion())) {
+                return;
+            }
+
+            cambio.cambios().forEach(c -> c.accept(this));
+        }
+
+        // signo 1 al crear y -1 al eliminar, una actualizacion resta la version anterior y suma la nueva
+        void sumar(ReservaSnapshot reserva, int signo) {
+            total.sumar(signo, reserva.asistentes());
+
+            if (!reserva.fecha().isBefore(LocalDate.now())) {
+                porDia.computeIfAbsent(reserva.fecha(), f -> new Uso()).sumar(signo, reserva.asistentes());
+            }
+
+            UsoAula aula = porAula.get(reserva.aulaId());
+
+            if (aula != null) {
+                aula.uso.sumar(signo, reserva.asistentes());
+            }
+
+            TipoHorario tipo = tipos.get(reserva.horarioId());
+
+            if (tipo != null) {
+                porTipo.get(tipo).sumar(signo, reserva.asistentes());
+            }
+        }
+    }
+
+    private static class Uso {
+        private final AtomicLong reservas = new AtomicLong();
+        private final AtomicLong asistentes = new AtomicLong();
+
+        void sumar(int signo, int asistentesReserva) {
+            reservas.addAndGet(signo);
+            asistentes.addAndGet((long) signo * asistentesReserva);
+        }
+
+        void set(long totalReservas, long totalAsistentes) {
+            reservas.set(totalReservas);
+            asistentes.set(totalAsistentes);
+        }
+
+        ResumenResponse.Uso toDto() {
+            return new ResumenResponse.Uso(reservas.get(), asistentes.get());
+        }
+    }
+
+    private static class UsoAula {
+        private final String nombre;
+        private final Uso uso = new Uso();
+
+        UsoAula(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package io.github.isaac.reservas.services.importacion;
+
+import io.github.isaac.reservas.dtos.aula.AulaPostRequest;
+import io.github.isaac.reservas.dtos.horario.HorarioPostRequest;
+import io.github.isaac.reservas.dtos.importacion.ImportacionResultado;
+import io.github.isaac.reservas.dtos.importacion.ImportacionResultado.ErrorFila;
+import io.github.isaac.reservas.dtos.importacion.Referencia;
+import io.github.isaac.reservas.dtos.reserva.ReservaBatchResultado;
+import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.TipoCambio;
+import io.github.isaac.reservas.repositories.CatalogoJdbcRepository;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.services.ReservaBatchService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Importacion masiva desde CSV. El fichero se lee registro a registro y se procesa en bloques:
+// cada bloque resuelve sus referencias con una consulta por tipo, se inserta con INSERT agrupados
+// en su propia transaccion y se descarta. Las filas no validas se anotan en el informe y no
+// detienen la importacion
+@Service
+@AllArgsConstructor
+@Timed("reservas.servicio")
+public class ImportacionService {
+    private static final int TAMANO_BLOQUE = 500;
+
+    // Como maximo se devuelven estos errores, el resto solo se cuentan
+    private static final int MAX_ERRORES = 1000;
+
+    private static final DateTimeFormatter FECHA_ES = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final RepositoryAula aulas;
+    private final RepositoryHorario horarios;
+    private final RepositoryUsuario usuarios;
+    private final CatalogoJdbcRepository catalogoJdbc;
+    private final ReservaBatchService reservaBatchService;
+    private final Validator validator;
+    private final TransactionTemplate transacciones;
+    private final ApplicationEventPublisher eventos;
+
+    // Columnas: nombre, capacidad, ordenadores
+    public ImportacionResultado importarAulas(Reader origen) throws IOException {
+        Informe informe = new Informe();
+
+        try (LectorCsv csv = new LectorCsv(origen)) {
+            csv.exigirColumnas("nombre", "capacidad", "ordenadores");
+
+            Set<String> nombresFichero = new HashSet<>();
+            List<Fila<AulaPostRequest>> bloque = new ArrayList<>(TAMANO_BLOQUE);
+            List<String> registro;
+
+            while ((registro = csv.siguiente()) != null) {
+                long linea = csv.getLinea();
+                informe.filas++;
+
+                try {
+                    AulaPostRequest aula = new AulaPostRequest();
+                    aula.setNombre(csv.valor(registro, "nombre"));
+                    aula.setCapacidad(entero(csv.valor(registro, "capacidad"), "capacidad"));
+                    aula.setOrdenadores(booleano(csv.valor(registro, "ordenadores")));
+                    validar(aula);
+
+                    if (!nombresFichero.add(aula.getNombre())) {
+                        throw new IllegalArgumentException("El aula esta repetida en el fichero");
+                    }
+
+                    bloque.add(new Fila<>(linea, aula));
+                } catch (IllegalArgumentException e) {
+                    informe.error(linea, e.getMessage());
+                }
+
+                if (bloque.size() == TAMANO_BLOQUE) {
+                    guardarAulas(bloque, informe);
+                    bloque.clear();
+                }
+            }
+
+            guardarAulas(bloque, informe);
+        }
+
+        return informe.resultado();
+    }
+
+    // Columnas: dia, tipo, inicio, fin, sesion
+    public ImportacionResultado importarHorarios(Reader origen) throws IOException {
+        Informe informe = new Informe();
+
+        try (LectorCsv csv = new LectorCsv(origen)) {
+            csv.exigirColumnas("dia", "tipo", "inicio", "fin", "sesion");
+
+            // Los horarios son pocos, las claves existentes se cargan una vez
+            Set<ClaveHorario> existentes = horarios.findAll().stream()
+                    .map(horario -> new ClaveHorario(horario.getDiaSemana(), horario.getSessionDia()))
+                    .collect(Collectors.toCollection(HashSet::new));
+
+            List<Fila<HorarioPostRequest>> bloque = new ArrayList<>(TAMANO_BLOQUE);
+            List<String> registro;
+
+            while ((registro = csv.siguiente()) != null) {
+                long linea = csv.getLinea();
+                informe.filas++;
+
+                try {
+                    HorarioPostRequest horario = new HorarioPostRequest();
+                    horario.setDia(enumerado(DiaSemana.class, csv.valor(registro, "dia"), "dia"));
+                    horario.setTipo(enumerado(TipoHorario.class, csv.valor(registro, "tipo"), "tipo"));
+                    horario.setInicio(hora(csv.valor(registro, "inicio"), "inicio"));
+                    horario.setFin(hora(csv.valor(registro, "fin"), "fin"));
+                    horario.setSession(csv.valor(registro, "sesion") == null ? null : entero(csv.valor(registro, "sesion"), "sesion"));
+                    validar(horario);
+
+                    if (!horario.getInicio().isBefore(horario.getFin())) {
+                        throw new IllegalArgumentException("La hora de inicio debe ser anterior a la de fin");
+                    }
+
+                    if (!existentes.add(new ClaveHorario(horario.getDia(), horario.getSession()))) {
+                        throw new IllegalArgumentException("Ya existe un horario para ese dia y sesion");
+                    }
+
+                    bloque.add(new Fila<>(linea, horario));
+                } catch (IllegalArgumentException e) {
+                    informe.error(linea, e.getMessage());
+                }
+
+                if (bloque.size() == TAMANO_BLOQUE) {
+                    guardarHorarios(bloque, informe);
+                    bloque.clear();
+                }
+            }
+
+            guardarHorarios(bloque, informe);
+        }
+
+        return informe.resultado();
+    }
+
+    // Columnas: fecha, aula (nombre), sesion, usuario (email), motivo, asistentes.
+    // El horario se deduce del dia de la semana de la fecha y la sesion
+    public ImportacionResultado importarReservas(Reader origen) throws IOException {
+        Informe informe = new Informe();
+
+        try (LectorCsv csv = new LectorCsv(origen)) {
+            csv.exigirColumnas("fecha", "aula", "sesion", "usuario", "motivo", "asistentes");
+
+            Map<ClaveHorario, Long> horariosPorSesion = new HashMap<>();
+
+            for (Horario horario : horarios.findAll()) {
+                horariosPorSesion.put(new ClaveHorario(horario.getDiaSemana(), horario.getSessionDia()), horario.getId());
+            }
+
+            List<Fila<FilaReserva>> bloque = new ArrayList<>(TAMANO_BLOQUE);
+            List<String> registro;
+
+            while ((registro = csv.siguiente()) != null) {
+                long linea = csv.getLinea();
+                informe.filas++;
+
+                try {
+                    LocalDate fecha = fecha(csv.valor(registro, "fecha"));
+                    int sesion = entero(csv.valor(registro, "sesion"), "sesion");
+                    DiaSemana dia = DiaSemana.values()[fecha.getDayOfWeek().getValue() - 1];
+                    Long horarioId = horariosPorSesion.get(new ClaveHorario(dia, sesion));
+
+                    if (horarioId == null) {
+                        throw new IllegalArgumentException("No hay horario para la sesion " + sesion + " del " + dia);
+                    }
+
+                    bloque.add(new Fila<>(linea, new FilaReserva(
+                            fecha,
+                            horarioId,
+                            obligatorio(csv.valor(registro, "aula"), "aula"),
+                            obligatorio(csv.valor(registro, "usuario"), "usuario"),
+                            csv.valor(registro, "motivo"),
+                            entero(csv.valor(registro, "asistentes"), "asistentes")
+                    )));
+                } catch (IllegalArgumentException e) {
+                    informe.error(linea, e.getMessage());
+                }
+
+                if (bloque.size() == TAMANO_BLOQUE) {
+                    guardarReservas(bloque, informe);
+                    bloque.clear();
+                }
+            }
+
+            guardarReservas(bloque, informe);
+        }
+
+        return informe.resultado();
+    }
+
+    private void guardarAulas(List<Fila<AulaPostRequest>> bloque, Informe informe) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+
+        transacciones.executeWithoutResult(estado -> {
+            Set<String> existentes = aulas.findReferenciasByNombre(claves(bloque, AulaPostRequest::getNombre))
+                    .stream()
+                    .map(Referencia::clave)
+                    .collect(Collectors.toSet());
+
+            List<AulaPostRequest> nuevas = new ArrayList<>(bloque.size());
+
+            for (Fila<AulaPostRequest> fila : bloque) {
+                if (existentes.contains(fila.dato().getNombre())) {
+                    informe.error(fila.linea(), "Ya existe un aula con ese nombre");
+                } else {
+                    nuevas.add(fila.dato());
+                }
+            }
+
+            if (!nuevas.isEmpty()) {
+                catalogoJdbc.insertarAulas(nuevas);
+                informe.importadas += nuevas.size();
+
+                // Un solo evento por bloque: las caches invalidan los listados una vez
+                eventos.publishEvent(new CatalogoCambiado(Recurso.AULA, null, TipoCambio.CREACION));
+            }
+        });
+    }
+
+    private void guardarHorarios(List<Fila<HorarioPostRequest>> bloque, Informe informe) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+
+        transacciones.executeWithoutResult(estado -> {
+            catalogoJdbc.insertarHorarios(bloque.stream().map(Fila::dato).toList());
+            informe.importadas += bloque.size();
+
+            eventos.publishEvent(new CatalogoCambiado(Recurso.HORARIO, null, TipoCambio.CREACION));
+        });
+    }
+
+    // Las reservas pasan por el alta en lote, que comprueba capacidad y solapamientos
+    // contra la base de datos y dentro del bloque con unas pocas consultas
+    private void guardarReservas(List<Fila<FilaReserva>> bloque, Informe informe) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> aulasPorNombre = aulas.findReferenciasByNombre(claves(bloque, FilaReserva::aula))
+                .stream()
+                .collect(Collectors.toMap(Referencia::clave, Referencia::id));
+
+        Map<String, Long> usuariosPorEmail = usuarios.findReferenciasByEmail(claves(bloque, FilaReserva::usuario))
+                .stream()
+                .collect(Collectors.toMap(Referencia::clave, Referencia::id));
+
+        List<ReservaPostRequest> solicitudes = new ArrayList<>(bloque.size());
+        List<Long> lineas = new ArrayList<>(bloque.size());
+
+        for (Fila<FilaReserva> fila : bloque) {
+            FilaReserva dato = fila.dato();
+
+            try {
+                Long aulaId = aulasPorNombre.get(dato.aula());
+                Long usuarioId = usuariosPorEmail.get(dato.usuario());
+
+                if (aulaId == null) {
+                    throw new IllegalArgumentException("Aula no encontrado: " + dato.aula());
+                }
+
+                if (usuarioId == null) {
+                    throw new IllegalArgumentException("Usuario no encontrado: " + dato.usuario());
+                }
+
+                ReservaPostRequest solicitud = new ReservaPostRequest();
+                solicitud.setFecha(dato.fecha());
+                solicitud.setHorarioId(dato.horarioId());
+                solicitud.setAulaId(aulaId);
+                solicitud.setUsuarioId(usuarioId);
+                solicitud.setMotivo(dato.motivo());
+                solicitud.setAsistentes(dato.asistentes());
+                validar(solicitud);
+
+                solicitudes.add(solicitud);
+                lineas.add(fila.linea());
+            } catch (IllegalArgumentException e) {
+                informe.error(fila.linea(), e.getMessage());
+            }
+        }
+
+        if (solicitudes.isEmpty()) {
+            return;
+        }
+
+        for (ReservaBatchResultado resultado : reservaBatchService.addReservas(solicitudes)) {
+            if (resultado.isCreada()) {
+                informe.importadas++;
+            } else {
+                informe.error(lineas.get(resultado.getIndice()), resultado.getError());
+            }
+        }
+    }
+
+    // Aplica las mismas validaciones que los endpoints de alta
+    private <T> void validar(T dato) {
+        Set<ConstraintViolation<T>> errores = validator.validate(dato);
+
+        if (!errores.isEmpty()) {
+            throw new IllegalArgumentException(errores.stream()
+                    .map(error -> error.getPropertyPath() + ": " + error.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static <T> Set<String> claves(List<Fila<T>> bloque, Function<T, String> clave) {
+        return bloque.stream().map(fila -> clave.apply(fila.dato())).collect(Collectors.toSet());
+    }
+
+    private static String obligatorio(String valor, String columna) {
+        if (valor == null) {
+            throw new IllegalArgumentException(columna + ": Es obligatorio");
+        }
+
+        return valor;
+    }
+
+    private static int entero(String valor, String columna) {
+        try {
+            return Integer.parseInt(obligatorio(valor, columna));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + ": No es un numero entero");
+        }
+    }
+
+    private static Boolean booleano(String valor) {
+        if (valor == null) {
+            return null;
+        }
+
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "si", "sí", "1" -> true;
+            case "false", "no", "0" -> false;
+            default -> throw new IllegalArgumentException("ordenadores: Debe ser si o no");
+        };
+    }
+
+    // Admite los valores con o sin tildes y en minusculas (miércoles -> MIERCOLES)
+    private static <E extends Enum<E>> E enumerado(Class<E> tipo, String valor, String columna) {
+        if (valor == null) {
+            return null;
+        }
+
+        String nombre = Normalizer.normalize(valor, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toUpperCase(Locale.ROOT);
+
+        try {
+            return Enum.valueOf(tipo, nombre);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(columna + ": Valor no valido " + valor);
+        }
+    }
+
+    private static LocalTime hora(String valor, String columna) {
+        if (valor == null) {
+            return null;
+        }
+
+        try {
+            return LocalTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(columna + ": La hora debe tener el formato HH:mm");
+        }
+    }
+
+    // Acepta yyyy-MM-dd y dd/MM/yyyy, el formato que usan los JSON de la API
+    private static LocalDate fecha(String valor) {
+        obligatorio(valor, "fecha");
+
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor, FECHA_ES) : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("fecha: Debe tener el formato yyyy-MM-dd o dd/MM/yyyy");
+        }
+    }
+
+    private record Fila<T>(long linea, T dato) {
+    }
+
+    private record FilaReserva(LocalDate fecha, Long horarioId, String aula, String usuario, String motivo, int asistentes) {
+    }
+
+    private record ClaveHorario(DiaSemana dia, Integer sesion) {
+    }
+
+    private static class Informe {
+        private long filas;
+        private long importadas;
+        private final List<ErrorFila> errores = new ArrayList<>();
+
+        private void error(long linea, String error) {
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new ErrorFila(linea, error));
+            }
+        }
+
+        private ImportacionResultado resultado() {
+            return new ImportacionResultado(filas, importadas, errores);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.isaac.reservas.services.importacion;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Lector de CSV registro a registro (RFC 4180: campos entre comillas con separadores, comillas
+// dobles y saltos de linea). Nunca carga el fichero entero. El separador (',' o ';', el que usa
+// Excel en espanol) se detecta en la cabecera, que se lee al crear el lector
+public class LectorCsv implements Closeable {
+    private static final char BOM = '\uFEFF';
+    private static final int MAX_CAMPO = 10_000;
+
+    private final BufferedReader reader;
+    private final char separador;
+    private final Map<String, Integer> columnas = new HashMap<>();
+
+    // Numero de linea fisica donde empieza el ultimo registro leido (la cabecera es la 1)
+    private long linea = 0;
+    private long siguienteLinea = 1;
+
+    public LectorCsv(Reader origen) throws IOException {
+        this.reader = origen instanceof BufferedReader buffered ? buffered : new BufferedReader(origen);
+        this.separador = detectarSeparador();
+
+        List<String> cabecera = siguiente();
+
+        if (cabecera == null) {
+            throw new IllegalArgumentException("El fichero esta vacio");
+        }
+
+        for (int i = 0; i < cabecera.size(); i++) {
+            columnas.put(normalizar(cabecera.get(i)), i);
+        }
+    }
+
+    // Comprueba que existen las columnas obligatorias
+    public void exigirColumnas(String... nombres) {
+        List<String> faltan = new ArrayList<>();
+
+        for (String nombre : nombres) {
+            if (!columnas.containsKey(nombre)) {
+                faltan.add(nombre);
+            }
+        }
+
+        if (!faltan.isEmpty()) {
+            throw new IllegalArgumentException("Faltan columnas en la cabecera: " + String.join(", ", faltan));
+        }
+    }
+
+    // Valor de una columna del registro, vacio se devuelve como null
+    public String valor(List<String> registro, String columna) {
+        Integer indice = columnas.get(columna);
+
+        if (indice == null || indice >= registro.size()) {
+            return null;
+        }
+
+        String valor = registro.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    // Devuelve null al llegar al final, las lineas en blanco se saltan
+    public List<String> siguiente() throws IOException {
+        while (true) {
+            linea = siguienteLinea;
+
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            boolean leido = false;
+            int c;
+
+            while ((c = reader.read()) != -1) {
+                leido = true;
+                char ch = (char) c;
+
+                if (entreComillas) {
+                    if (ch == '"') {
+                        reader.mark(1);
+
+                        if (reader.read() == '"') {
+                            campo.append('"');
+                        } else {
+                            reader.reset();
+                            entreComillas = false;
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            siguienteLinea++;
+                        }
+
+                        campo.append(ch);
+
+                        // Una comilla sin cerrar no debe acabar cargando el resto del fichero
+                        if (campo.length() > MAX_CAMPO) {
+                            throw new IllegalArgumentException("Campo demasiado largo en el registro de la linea " + linea);
+                        }
+                    }
+                } else if (ch == '"') {
+                    entreComillas = true;
+                } else if (ch == separador) {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (ch == '\r') {
+                    // Se ignora, el fin de registro lo marca \n
+                } else if (ch == '\n') {
+                    siguienteLinea++;
+                    break;
+                } else {
+                    campo.append(ch);
+                }
+            }
+
+            if (!leido) {
+                return null;
+            }
+
+            if (entreComillas) {
+                throw new IllegalArgumentException("Comillas sin cerrar en el registro de la linea " + linea);
+            }
+
+            campos.add(campo.toString());
+
+            if (campos.size() == 1 && campos.getFirst().isBlank()) {
+                continue;
+            }
+
+            // Marca de orden de bytes que dejan algunos editores al principio del fichero
+            if (linea == 1 && !campos.getFirst().isEmpty() && campos.getFirst().charAt(0) == BOM) {
+                campos.set(0, campos.getFirst().substring(1));
+            }
+
+            return campos;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private char detectarSeparador() throws IOException {
+        reader.mark(8192);
+        String primera = reader.readLine();
+        reader.reset();
+
+        if (primera == null) {
+            return ',';
+        }
+
+        long comas = primera.chars().filter(ch -> ch == ',').count();
+        long puntoComa = primera.chars().filter(ch -> ch == ';').count();
+
+        return puntoComa > comas ? ';' : ',';
+    }
+
+    private static String normalizar(String columna) {
+        return columna.replace(String.valueOf(BOM), "").trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.isaac.reservas.services.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+// Contadores del alta de reservas: como responde el indice de ocupacion, cuantas veces se
+// consulta la base de datos y por que se rechazan reservas. Se registran al arrancar
+// para que aparezcan en Prometheus aunque valgan cero
+@Component
+public class MetricasReservas {
+    public enum Motivo {
+        CAPACIDAD,
+        SOLAPAMIENTO,
+        REFERENCIA,
+        RESTRICCION
+    }
+
+    private final Counter indiceOcupado;
+    private final Counter indiceLibre;
+    private final Counter indiceSinRespuesta;
+    private final Counter baseDatosOcupado;
+    private final Counter baseDatosLibre;
+    private final Map<Motivo, Counter> rechazos = new EnumMap<>(Motivo.class);
+
+    public MetricasReservas(MeterRegistry registry) {
+        indiceOcupado = consulta(registry, "reservas.ocupacion.indice", "ocupado");
+        indiceLibre = consulta(registry, "reservas.ocupacion.indice", "libre");
+        indiceSinRespuesta = consulta(registry, "reservas.ocupacion.indice", "sin_respuesta");
+        baseDatosOcupado = consulta(registry, "reservas.ocupacion.base_datos", "ocupado");
+        baseDatosLibre = consulta(registry, "reservas.ocupacion.base_datos", "libre");
+
+        for (Motivo motivo : Motivo.values()) {
+            rechazos.put(motivo, Counter.builder("reservas.rechazadas")
+                    .description("Reservas rechazadas por motivo")
+                    .tag("motivo", motivo.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    public void consultaIndice(Optional<Boolean> resultado) {
+        if (resultado.isEmpty()) {
+            indiceSinRespuesta.increment();
+        } else if (resultado.get()) {
+            indiceOcupado.increment();
+        } else {
+            indiceLibre.increment();
+        }
+    }
+
+    public void consultaBaseDatos(boolean ocupado) {
+        (ocupado ? baseDatosOcupado : baseDatosLibre).increment();
+    }
+
+    public void rechazo(Motivo motivo) {
+        rechazos.get(motivo).increment();
+    }
+
+    private static Counter consulta(MeterRegistry registry, String nombre, String resultado) {
+        return Counter.builder(nombre)
+                .description("Comprobaciones de solapamiento por resultado")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.isaac.reservas.services.ocupacion;
+
+import io.github.isaac.reservas.config.LecturaPrimaria;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.events.TipoCambio;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indice en memoria de la ocupacion de cada aula por dia. Cada (aula, fecha) guarda
+// un bitset con los minutos ocupados, asi el solapamiento se responde sin ir a la base de datos.
+// El indice se carga al arrancar y se mantiene con los eventos de ReservaService tras el commit.
+// La base de datos sigue siendo la fuente de verdad: si el indice no puede responder devuelve vacio.
+// Los eventos solo llegan de esta instancia: lo que cambien otras instancias, la importacion o SQL a
+// mano no se ve hasta la reconstruccion periodica, y un tramo ocupado se confirma siempre en la base
+// de datos antes de rechazar (un hueco libre lo protege la restriccion de exclusion)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OcupacionAulas {
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    private final RepositoryReserva reservas;
+
+    private final Map<Clave, Dia> dias = new ConcurrentHashMap<>();
+    private final Map<Long, Clave> claves = new ConcurrentHashMap<>();
+
+    // La reconstruccion toma el lock de escritura, las consultas y eventos el de lectura
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Primer dia que contiene el indice, las fechas anteriores se consultan en la base de datos
+    private volatile LocalDate desde;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        reconstruir();
+    }
+
+    // Devuelve vacio si el indice no esta cargado o la fecha queda fuera del rango cargado
+    public Optional<Boolean> haySolapamiento(Long aulaId, LocalDate fecha, LocalTime inicio, LocalTime fin, Long excluirId) {
+        LocalDate inicioIndice = desde;
+
+        if (inicioIndice == null || fecha.isBefore(inicioIndice) || !lock.readLock().tryLock()) {
+            return Optional.empty();
+        }
+
+        try {
+            Dia dia = dias.get(new Clave(aulaId, fecha));
+
+            if (dia == null) {
+                return Optional.of(false);
+            }
+
+            return Optional.of(dia.solapa(minuto(inicio), minuto(fin), excluirId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservaCambiada(ReservaCambiada evento) {
+        lock.readLock().lock();
+
+        try {
+            if (evento.anterior() != null) {
+                quitar(evento.anterior().id());
+            }
+
+            if (evento.actual() != null) {
+                poner(evento.actual());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Modificar un horario cambia las horas de todas sus reservas y eliminar un aula,
+    // horario o usuario borra reservas en cascada, en esos casos se recarga el indice.
+    // Las altas no tienen reservas todavia y no lo tocan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoCambiado(CatalogoCambiado evento) {
+        if (evento.tipo() == TipoCambio.ELIMINACION
+                || (evento.recurso() == Recurso.HORARIO && evento.tipo() == TipoCambio.ACTUALIZACION)) {
+            reconstruir();
+        }
+    }
+
+    // Recoge los cambios que no han pasado por los eventos de esta instancia
+    @Scheduled(fixedDelayString = "${reservas.ocupacion.reconstruccion:PT15M}", initialDelayString = "${reservas.ocupacion.reconstruccion:PT15M}")
+    public void reconstruirPeriodicamente() {
+        reconstruir();
+    }
+
+    // Vuelve a leer un dia de un aula cuando la base de datos desmiente al indice (reserva borrada
+    // o movida fuera de esta instancia). La reserva que se esta validando no se toca, su posicion
+    // en el indice la cambian los eventos tras el commit
+    public void recargar(Long aulaId, LocalDate fecha, Long excluirId) {
+        Clave clave = new Clave(aulaId, fecha);
+        List<ReservaSnapshot> tramos = reservas.findSnapshotsEnRango(List.of(aulaId), fecha, fecha);
+
+        lock.readLock().lock();
+
+        try {
+            Dia dia = dias.get(clave);
+
+            if (dia != null) {
+                dia.ids().stream().filter(id -> !id.equals(excluirId)).forEach(this::quitar);
+            }
+
+            tramos.stream().filter(tramo -> !tramo.id().equals(excluirId)).forEach(this::poner);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        log.info("Indice de ocupacion desfasado para el aula {} el {}, recargado con {} reservas", aulaId, fecha, tramos.size());
+    }
+
+    // Se descartan los dias que ya han pasado
+    @Scheduled(cron = "0 0 3 * * *")
+    public void purgar() {
+        LocalDate hoy = LocalDate.now();
+
+        lock.writeLock().lock();
+
+        try {
+            dias.keySet().removeIf(clave -> clave.fecha().isBefore(hoy));
+            claves.values().removeIf(clave -> clave.fecha().isBefore(hoy));
+            desde = hoy;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reconstruir() {
+        LocalDate hoy = LocalDate.now();
+
+        lock.writeLock().lock();
+
+        try {
+            desde = null;
+            dias.clear();
+            claves.clear();
+
+            // El indice decide si un hueco esta libre, no puede ir por detras de la primaria
+            List<ReservaSnapshot> tramos = LecturaPrimaria.ejecutar(() -> reservas.findSnapshotsDesde(hoy));
+            tramos.forEach(this::poner);
+
+            desde = hoy;
+            log.info("Indice de ocupacion cargado con {} reservas desde {}", tramos.size(), hoy);
+        } catch (RuntimeException e) {
+            // Sin indice las comprobaciones van a la base de datos
+            log.error("No se pudo cargar el indice de ocupacion", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void poner(ReservaSnapshot reserva) {
+        // Es idempotente, si la reserva ya estaba se mueve a su nueva posicion
+        quitar(reserva.id());
+
+        Clave clave = new Clave(reserva.aulaId(), reserva.fecha());
+        Tramo tramo = new Tramo(minuto(reserva.inicio()), minuto(reserva.fin()));
+
+        dias.compute(clave, (c, dia) -> {
+            Dia destino = dia != null ? dia : new Dia();
+            destino.poner(reserva.id(), tramo);
+            return destino;
+        });
+        claves.put(reserva.id(), clave);
+    }
+
+    private void quitar(Long reservaId) {
+        Clave clave = claves.remove(reservaId);
+
+        if (clave != null) {
+            dias.computeIfPresent(clave, (c, dia) -> dia.quitar(reservaId) ? null : dia);
+        }
+    }
+
+    private static int minuto(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    private record Clave(Long aulaId, LocalDate fecha) {
+    }
+
+    // Intervalo semiabierto [inicio, fin) en minutos del dia
+    private record Tramo(int inicio, int fin) {
+        boolean solapa(int otroInicio, int otroFin) {
+            return inicio < otroFin && fin > otroInicio;
+        }
+    }
+
+    private static class Dia {
+        private final BitSet minutos = new BitSet(MINUTOS_DIA);
+        private final Map<Long, Tramo> tramos = new HashMap<>();
+
+        synchronized void poner(Long reservaId, Tramo tramo) {
+            tramos.put(reservaId, tramo);
+            minutos.set(tramo.inicio(), tramo.fin());
+        }
+
+        synchronized Set<Long> ids() {
+            return Set.copyOf(tramos.keySet());
+        }
+
+        // Devuelve true si el dia se queda vacio
+        synchronized boolean quitar(Long reservaId) {
+            if (tramos.remove(reservaId) != null) {
+                // Se recalcula por si habia tramos solapados de datos antiguos
+                minutos.clear();
+                tramos.values().forEach(t -> minutos.set(t.inicio(), t.fin()));
+            }
+
+            return tramos.isEmpty();
+        }
+
+        synchronized boolean solapa(int inicio, int fin, Long excluirId) {
+            int ocupado = minutos.nextSetBit(inicio);
+
+            if (ocupado < 0 || ocupado >= fin) {
+                return false;
+            }
+
+            if (excluirId == null) {
+                return true;
+            }
+
+            // Hay minutos ocupados, se mira si son de otra reserva distinta a la excluida
+            return tramos.entrySet().stream()
+                    .anyMatch(e -> !e.getKey().equals(excluirId) && e.getValue().solapa(inicio, fin));
+        }
+    }
+}
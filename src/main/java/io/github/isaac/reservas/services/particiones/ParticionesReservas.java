@@ -0,0 +1,115 @@
+package io.github.isaac.reservas.services.particiones;
+
+import io.github.isaac.reservas.events.ReservasArchivadas;
+import io.github.isaac.reservas.repositories.ParticionesJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Mantiene las particiones mensuales de reservas (db/migration/V6__reservas_particionadas.sql):
+//   - crea por adelantado los meses de los proximos meses-futuros, asi las reservas nuevas nunca
+//     caen en reservas_defecto
+//   - con archivar=true pasa a reservas_archivo los meses que terminaron hace mas de
+//     meses-activos. Los solapamientos, listados y cuadriculas dejan de recorrerlos
+// Se ejecuta al arrancar y cada noche. Cada operacion va en su propia transaccion en la primaria
+// (no es de solo lectura) con un bloqueo consultivo para que solo la haga una instancia
+@Slf4j
+@Component
+public class ParticionesReservas {
+    private final ParticionesJdbcRepository particiones;
+    private final ApplicationEventPublisher eventos;
+    private final TransactionTemplate transaccion;
+    private final int mesesFuturos;
+    private final int mesesActivos;
+    private final boolean archivar;
+    private final Duration espera;
+
+    public ParticionesReservas(ParticionesJdbcRepository particiones, ApplicationEventPublisher eventos,
+                               PlatformTransactionManager transacciones,
+                               @Value("${reservas.particiones.meses-futuros:18}") int mesesFuturos,
+                               @Value("${reservas.particiones.meses-activos:12}") int mesesActivos,
+                               @Value("${reservas.particiones.archivar:false}") boolean archivar,
+                               @Value("${reservas.particiones.espera-bloqueo:PT5S}") Duration espera) {
+        this.particiones = particiones;
+        this.eventos = eventos;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.mesesFuturos = mesesFuturos;
+        this.mesesActivos = mesesActivos;
+        this.archivar = archivar;
+        this.espera = espera;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${reservas.particiones.mantenimiento:0 30 3 * * *}")
+    public void mantener() {
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+
+        try {
+            Integer creadas = transaccion.execute(estado -> {
+                if (!bloquear()) {
+                    return 0;
+                }
+
+                int total = 0;
+
+                for (int i = 0; i <= mesesFuturos; i++) {
+                    if (particiones.crearParticion(mes.plusMonths(i))) {
+                        total++;
+                    }
+                }
+
+                return total;
+            });
+
+            if (creadas != null && creadas > 0) {
+                log.info("Creadas {} particiones mensuales de reservas", creadas);
+            }
+        } catch (RuntimeException e) {
+            log.error("No se pudieron crear las particiones de reservas", e);
+        }
+
+        if (archivar) {
+            archivar(mes.minusMonths(mesesActivos));
+        }
+    }
+
+    // Archiva los meses que terminan antes de limite. El evento se publica dentro de la
+    // transaccion y los listeners lo reciben tras el commit
+    private void archivar(LocalDate limite) {
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                if (!bloquear()) {
+                    return;
+                }
+
+                int archivadas = particiones.archivarHasta(limite);
+
+                if (archivadas > 0) {
+                    log.info("Archivados {} meses de reservas anteriores a {}", archivadas, limite);
+                    eventos.publishEvent(new ReservasArchivadas(limite, archivadas));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudieron archivar las reservas anteriores a {}", limite, e);
+        }
+    }
+
+    private boolean bloquear() {
+        if (!particiones.bloquear()) {
+            log.debug("Otra instancia esta manteniendo las particiones de reservas");
+            return false;
+        }
+
+        particiones.limitarEspera(espera);
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.isaac.reservas.services.semana;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Clave de la cache de cuadriculas: de quien es la semana y su lunes
+public record ClaveSemana(Ambito ambito, Long id, LocalDate lunes) {
+    public enum Ambito {
+        AULA,
+        USUARIO
+    }
+
+    // Cualquier fecha de la semana da la misma clave
+    public static ClaveSemana de(Ambito ambito, Long id, LocalDate fecha) {
+        return new ClaveSemana(ambito, id, lunes(fecha));
+    }
+
+    public static LocalDate lunes(LocalDate fecha) {
+        return fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
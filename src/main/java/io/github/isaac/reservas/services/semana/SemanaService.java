@@ -0,0 +1,167 @@
+package io.github.isaac.reservas.services.semana;
+
+import io.github.isaac.reservas.config.CacheConfig;
+import io.github.isaac.reservas.dtos.reserva.ReservaFila;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse.Dia;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse.ReservaTramo;
+import io.github.isaac.reservas.dtos.semana.SemanaResponse.Tramo;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.services.semana.ClaveSemana.Ambito;
+import io.github.isaac.reservas.services.version.Coleccion;
+import io.github.isaac.reservas.services.version.VersionesColecciones;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Cuadricula semanal de un aula o un usuario construida en el servidor con una sola consulta
+// por rango de la semana. La clave de la cache lleva el ETag de las reservas (VersionesColecciones),
+// que cubre tambien aulas, horarios y usuarios: una escritura en cualquier instancia hace que la
+// siguiente lectura construya la cuadricula de nuevo y las entradas antiguas caducan solas.
+// El controlador responde con ese mismo ETag, igual en todas las instancias
+@Service
+@Timed("reservas.servicio")
+public class SemanaService {
+    private final RepositoryReserva reservas;
+    private final RepositoryHorario horarios;
+    private final RepositoryAula aulas;
+    private final RepositoryUsuario usuarios;
+    private final VersionesColecciones versiones;
+    private final Cache semanas;
+
+    public SemanaService(RepositoryReserva reservas, RepositoryHorario horarios, RepositoryAula aulas,
+                         RepositoryUsuario usuarios, VersionesColecciones versiones, CacheManager cacheManager) {
+        this.reservas = reservas;
+        this.horarios = horarios;
+        this.aulas = aulas;
+        this.usuarios = usuarios;
+        this.versiones = versiones;
+        this.semanas = cacheManager.getCache(CacheConfig.SEMANAS);
+    }
+
+    @Transactional(readOnly = true)
+    public SemanaResponse getSemanaAula(Long aulaId, LocalDate fecha) {
+        return getSemana(ClaveSemana.de(Ambito.AULA, aulaId, fecha));
+    }
+
+    @Transactional(readOnly = true)
+    public SemanaResponse getSemanaUsuario(Long usuarioId, LocalDate fecha) {
+        return getSemana(ClaveSemana.de(Ambito.USUARIO, usuarioId, fecha));
+    }
+
+    private SemanaResponse getSemana(ClaveSemana clave) {
+        // La version se lee antes que las reservas en la misma transaccion (la de
+        // RespuestasCondicionales), asi una entrada nunca guarda datos mas antiguos que su version
+        Entrada entrada = new Entrada(clave, versiones.etag(Coleccion.RESERVAS));
+
+        // get con cargador no pasa por la transaccion, el valor se guarda al momento
+        try {
+            return semanas.get(entrada, () -> construir(clave));
+        } catch (Cache.ValueRetrievalException e) {
+            // Se relanza el error original (por ejemplo el 404 si no existe)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+
+            throw e;
+        }
+    }
+
+    private SemanaResponse construir(ClaveSemana clave) {
+        boolean existe = clave.ambito() == Ambito.AULA
+                ? aulas.existsById(clave.id())
+                : usuarios.existsById(clave.id());
+
+        if (!existe) {
+            throw new EntityNotFoundException(clave.ambito() == Ambito.AULA ? "Aula no encontrado" : "Usuario no encontrado");
+        }
+
+        LocalDate desde = clave.lunes();
+        LocalDate hasta = desde.plusDays(6);
+
+        List<ReservaFila> filas = reservas.findFilasEnRango(
+                clave.ambito() == Ambito.AULA ? clave.id() : null,
+                clave.ambito() == Ambito.USUARIO ? clave.id() : null,
+                desde,
+                hasta
+        );
+
+        Map<Long, Horario> todos = horarios.findAll().stream()
+                .collect(Collectors.toMap(Horario::getId, Function.identity()));
+
+        Map<LocalDate, List<ReservaFila>> porFecha = filas.stream()
+                .collect(Collectors.groupingBy(ReservaFila::fecha));
+
+        List<Dia> dias = new ArrayList<>(7);
+
+        for (DiaSemana dia : DiaSemana.values()) {
+            LocalDate fecha = desde.plusDays(dia.ordinal());
+            List<ReservaFila> delDia = porFecha.getOrDefault(fecha, List.of());
+
+            // Tramos del dia mas los de otros dias que tengan reservas en esta fecha
+            Map<Long, Horario> tramos = new LinkedHashMap<>();
+
+            todos.values().stream()
+                    .filter(horario -> horario.getDiaSemana() == dia)
+                    .forEach(horario -> tramos.put(horario.getId(), horario));
+
+            delDia.forEach(fila -> tramos.putIfAbsent(fila.horarioId(), todos.get(fila.horarioId())));
+
+            Map<Long, List<ReservaTramo>> reservasPorHorario = delDia.stream()
+                    .collect(Collectors.groupingBy(ReservaFila::horarioId, Collectors.mapping(SemanaService::toReserva, Collectors.toList())));
+
+            List<Tramo> celdas = tramos.values().stream()
+                    .sorted(Comparator.comparing(Horario::getInicio).thenComparing(Horario::getSessionDia))
+                    .map(horario -> {
+                        List<ReservaTramo> enTramo = reservasPorHorario.getOrDefault(horario.getId(), List.of());
+
+                        return new Tramo(
+                                horario.getId(),
+                                horario.getSessionDia(),
+                                horario.getTipo(),
+                                horario.getInicio(),
+                                horario.getFin(),
+                                !enTramo.isEmpty(),
+                                enTramo
+                        );
+                    })
+                    .toList();
+
+            dias.add(new Dia(dia, fecha, celdas));
+        }
+
+        return new SemanaResponse(clave.id(), desde, hasta, dias);
+    }
+
+    private static ReservaTramo toReserva(ReservaFila fila) {
+        return new ReservaTramo(
+                fila.id(),
+                fila.aulaId(),
+                fila.aulaNombre(),
+                fila.usuarioId(),
+                fila.usuarioNombre(),
+                fila.motivo(),
+                fila.asistentes()
+        );
+    }
+
+    private record Entrada(ClaveSemana semana, String version) {
+    }
+}
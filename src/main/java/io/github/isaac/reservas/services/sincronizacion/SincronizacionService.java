@@ -0,0 +1,91 @@
+package io.github.isaac.reservas.services.sincronizacion;
+
+import io.github.isaac.reservas.config.LecturaPrimaria;
+import io.github.isaac.reservas.dtos.sincronizacion.SincronizacionResponse;
+import io.github.isaac.reservas.repositories.SincronizacionJdbcRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Sincronizacion incremental. La version de cada fila es el id de la transaccion que la escribio
+// y el cursor que se devuelve es la transaccion activa mas antigua: las versiones no se asignan
+// en orden de commit, asi una transaccion lenta que confirma despues de una llamada no se pierde
+// porque su version sigue siendo mayor o igual que el cursor. A cambio una fila puede llegar
+// dos veces, el cliente la aplica por id
+@Slf4j
+@Service
+@Timed("reservas.servicio")
+public class SincronizacionService {
+    private final SincronizacionJdbcRepository repository;
+    private final int limite;
+    private final Duration retencion;
+
+    public SincronizacionService(
+            SincronizacionJdbcRepository repository,
+            @Value("${reservas.sync.limite:1000}") int limite,
+            @Value("${reservas.sync.retencion:P30D}") Duration retencion) {
+        this.repository = repository;
+        this.limite = limite;
+        this.retencion = retencion;
+    }
+
+    // Todas las consultas ven la misma foto, la del calculo del cursor. Los usuarios y sus
+    // lapidas solo se incluyen para administradores
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SincronizacionResponse cambios(long since, boolean conUsuarios) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since no puede ser negativo");
+        }
+
+        // Siempre de la primaria: en una replica atrasada el cursor seria menor que el que ya
+        // tiene el cliente y se tomaria por un cursor invalido
+        return LecturaPrimaria.ejecutar(() -> cambiosDesde(since, conUsuarios));
+    }
+
+    private SincronizacionResponse cambiosDesde(long since, boolean conUsuarios) {
+        long estable = repository.versionEstable();
+
+        // Lapidas ya purgadas o un cursor de otra base de datos: se parte de cero
+        boolean reinicio = since > 0 && (since < repository.horizonte() || since > estable);
+        long desde = reinicio ? 0 : since;
+
+        // Sin copia local no hace falta ninguna lapida
+        boolean conEliminaciones = desde > 0;
+
+        // Se corta entre transacciones, nunca en medio de una: una transaccion con mas filas
+        // que el limite se devuelve entera
+        List<Long> versiones = repository.versiones(desde, estable, conUsuarios, conEliminaciones, limite + 1);
+        long hasta = estable;
+
+        if (versiones.size() > limite) {
+            long corte = versiones.get(limite);
+            hasta = corte > versiones.getFirst() ? corte : corte + 1;
+        }
+
+        return new SincronizacionResponse(
+                hasta,
+                hasta < estable,
+                reinicio,
+                repository.reservas(desde, hasta),
+                repository.aulas(desde, hasta),
+                repository.horarios(desde, hasta),
+                conUsuarios ? repository.usuarios(desde, hasta) : List.of(),
+                conEliminaciones ? repository.eliminaciones(desde, hasta, conUsuarios) : List.of()
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${reservas.sync.purga:PT1H}", initialDelayString = "${reservas.sync.purga:PT1H}")
+    public void purgar() {
+        if (repository.purgar(LocalDateTime.now().minus(retencion))) {
+            log.info("Purgadas las lapidas de sincronizacion con mas de {}", retencion);
+        }
+    }
+}
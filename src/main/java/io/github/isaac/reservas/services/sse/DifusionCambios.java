@@ -0,0 +1,322 @@
+package io.github.isaac.reservas.services.sse;
+
+import io.github.isaac.reservas.dtos.evento.CambioEvento;
+import io.github.isaac.reservas.dtos.evento.FiltroEventos;
+import io.github.isaac.reservas.events.CatalogoCambiado;
+import io.github.isaac.reservas.events.Recurso;
+import io.github.isaac.reservas.events.ReservaCambiada;
+import io.github.isaac.reservas.events.ReservaSnapshot;
+import io.github.isaac.reservas.exceptions.DemasiadasPeticionesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Difusion de cambios por Server-Sent Events. Las conexiones abiertas no ocupan ningun hilo
+// (peticiones asincronas de Tomcat), solo un emitter y una cola pequena por suscriptor:
+//   - los listeners encolan el cambio en los suscriptores cuyo filtro coincide sin bloquear nunca
+//     la peticion que hizo la escritura
+//   - cada suscriptor se vacia en un hilo virtual propio, un cliente lento no retrasa a los demas
+//   - si la cola de un suscriptor se llena se le envia "desbordado" y se cierra, el cliente
+//     vuelve a conectar y recarga los datos
+//   - cada pocos segundos se envia un latido para mantener vivas las conexiones inactivas
+// Los ultimos cambios se guardan para reenviarlos cuando el cliente reconecta con Last-Event-ID.
+// Solo se difunden las escrituras hechas en esta instancia: con varias instancias detras de un
+// balanceador cada suscriptor ve las de la suya, y para verlas todas haria falta un broker
+// compartido (p. ej. LISTEN/NOTIFY de PostgreSQL o Redis) que reparta los eventos entre ellas
+@Component
+public class DifusionCambios {
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Los ids son "<instancia>-<secuencia>": la secuencia y el historial son de esta instancia, un
+    // Last-Event-ID de otra (el balanceador manda la reconexion a otro nodo) o de antes de un
+    // reinicio no se puede comparar con ellos y recibe "reinicio"
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong secuencia = new AtomicLong();
+
+    // Historial reciente para reenviar tras una reconexion. Con su bloqueo se numeran y reparten
+    // los cambios, asi cada suscriptor los recibe en orden y sin huecos ni repetidos
+    private final Deque<Enviado> historial = new ArrayDeque<>();
+
+    private final int maxSuscriptores;
+    private final int tamanoCola;
+    private final int tamanoHistorial;
+    private final Duration duracion;
+    private final Counter desbordados;
+
+    public DifusionCambios(
+            @Value("${reservas.sse.max-suscriptores:10000}") int maxSuscriptores,
+            @Value("${reservas.sse.cola:256}") int tamanoCola,
+            @Value("${reservas.sse.historial:1000}") int tamanoHistorial,
+            @Value("${reservas.sse.duracion:PT30M}") Duration duracion,
+            MeterRegistry registry) {
+        this.maxSuscriptores = maxSuscriptores;
+        this.tamanoCola = tamanoCola;
+        this.tamanoHistorial = tamanoHistorial;
+        this.duracion = duracion;
+
+        Gauge.builder("reservas.sse.suscriptores", suscriptores, Set::size)
+                .description("Conexiones abiertas al stream de cambios")
+                .register(registry);
+
+        this.desbordados = Counter.builder("reservas.sse.desbordados")
+                .description("Suscriptores cerrados por no leer los cambios a tiempo")
+                .register(registry);
+    }
+
+    // Abre una suscripcion. Con ultimoId (cabecera Last-Event-ID) se reenvian los cambios
+    // posteriores si siguen en el historial, si no se envia "reinicio" para que el cliente recargue
+    public SseEmitter suscribir(FiltroEventos filtro, String ultimoId) {
+        if (suscriptores.size() >= maxSuscriptores) {
+            throw new DemasiadasPeticionesException("Se ha alcanzado el maximo de suscriptores al stream de cambios", 30);
+        }
+
+        // La conexion se cierra cada cierto tiempo y el cliente reconecta con Last-Event-ID
+        SseEmitter emitter = new SseEmitter(duracion.toMillis());
+        Suscriptor suscriptor = new Suscriptor(emitter, filtro, new ArrayBlockingQueue<>(tamanoCola));
+
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> {
+            suscriptores.remove(suscriptor);
+            emitter.complete();
+        });
+        emitter.onError(e -> suscriptores.remove(suscriptor));
+
+        Long recibido = ultimoId != null ? secuenciaDe(ultimoId) : null;
+
+        synchronized (historial) {
+            long ultimo = secuencia.get();
+
+            // Primer mensaje para que el cliente sepa que la suscripcion esta activa
+            suscriptor.cola.offer(new Enviado(ultimo, "conectado", null, List.of()));
+
+            if (recibido != null && recibido < 0) {
+                suscriptor.cola.offer(new Enviado(ultimo, "reinicio", null, List.of()));
+            } else if (recibido != null && recibido < ultimo) {
+                long primero = historial.isEmpty() ? ultimo + 1 : historial.peekFirst().id();
+
+                if (recibido + 1 < primero) {
+                    suscriptor.cola.offer(new Enviado(ultimo, "reinicio", null, List.of()));
+                } else {
+                    // Si no caben en la cola es igual que un desbordamiento: mejor recargar
+                    boolean caben = historial.stream()
+                            .filter(enviado -> enviado.id() > recibido && coincide(filtro, enviado))
+                            .allMatch(suscriptor.cola::offer);
+
+                    if (!caben) {
+                        suscriptor.cola.clear();
+                        suscriptor.cola.offer(new Enviado(ultimo, "reinicio", null, List.of()));
+                    }
+                }
+            } else if (recibido != null && recibido > ultimo) {
+                suscriptor.cola.offer(new Enviado(ultimo, "reinicio", null, List.of()));
+            }
+
+            suscriptores.add(suscriptor);
+        }
+
+        programar(suscriptor);
+
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservaCambiada(ReservaCambiada evento) {
+        ReservaSnapshot reserva = evento.actual() != null ? evento.actual() : evento.anterior();
+        List<ReservaSnapshot> estados = Stream.of(evento.anterior(), evento.actual()).filter(Objects::nonNull).toList();
+
+        difundir(new CambioEvento("reserva", evento.tipo(), reserva.id(), reserva), estados);
+    }
+
+    // Los cambios de usuarios no se difunden, solo los del catalogo de aulas y horarios
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogoCambiado(CatalogoCambiado evento) {
+        if (evento.recurso() == Recurso.USUARIO) {
+            return;
+        }
+
+        difundir(new CambioEvento(evento.recurso().name().toLowerCase(Locale.ROOT), evento.tipo(), evento.id(), null), List.of());
+    }
+
+    // Comentario SSE que los clientes ignoran, mantiene abiertas las conexiones a traves de proxies
+    // y detecta las que se cerraron sin avisar
+    @Scheduled(fixedRateString = "${reservas.sse.latido:PT15S}", initialDelayString = "${reservas.sse.latido:PT15S}")
+    public void latido() {
+        for (Suscriptor suscriptor : suscriptores) {
+            if (suscriptor.cola.isEmpty() && !suscriptor.enviando.get()) {
+                envios.execute(() -> enviar(suscriptor, SseEmitter.event().comment("latido")));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrarTodos() {
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        envios.shutdownNow();
+    }
+
+    private void difundir(CambioEvento cambio, List<ReservaSnapshot> estados) {
+        synchronized (historial) {
+            Enviado enviado = new Enviado(secuencia.incrementAndGet(), cambio.recurso(), cambio, estados);
+            historial.addLast(enviado);
+
+            if (historial.size() > tamanoHistorial) {
+                historial.removeFirst();
+            }
+
+            for (Suscriptor suscriptor : suscriptores) {
+                if (!coincide(suscriptor.filtro, enviado)) {
+                    continue;
+                }
+
+                if (suscriptor.cola.offer(enviado)) {
+                    programar(suscriptor);
+                } else {
+                    desbordar(suscriptor);
+                }
+            }
+        }
+    }
+
+    // Lanza el vaciado de la cola si no hay uno en marcha
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> vaciar(suscriptor));
+        }
+    }
+
+    private void vaciar(Suscriptor suscriptor) {
+        try {
+            Enviado enviado;
+
+            while ((enviado = suscriptor.cola.poll()) != null) {
+                SseEmitter.SseEventBuilder evento = SseEmitter.event()
+                        .id(instancia + "-" + enviado.id())
+                        .name(enviado.nombre())
+                        .data(enviado.cambio() != null ? enviado.cambio() : "{}", MediaType.APPLICATION_JSON);
+
+                if (!enviar(suscriptor, evento)) {
+                    return;
+                }
+            }
+        } finally {
+            suscriptor.enviando.set(false);
+        }
+
+        // Un cambio encolado mientras se liberaba la marca
+        if (!suscriptor.cola.isEmpty() && suscriptores.contains(suscriptor)) {
+            programar(suscriptor);
+        }
+    }
+
+    // Los envios a un mismo emitter no pueden solaparse (latido y cambios). Se usa un lock y no
+    // synchronized para no fijar el hilo virtual al hilo de plataforma mientras escribe en el socket
+    private boolean enviar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento) {
+        suscriptor.escritura.lock();
+
+        try {
+            suscriptor.emitter.send(evento);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // El cliente se ha desconectado o el emitter ya se completo
+            if (suscriptores.remove(suscriptor)) {
+                suscriptor.emitter.completeWithError(e);
+            }
+
+            return false;
+        } finally {
+            suscriptor.escritura.unlock();
+        }
+    }
+
+    private void desbordar(Suscriptor suscriptor) {
+        if (!suscriptores.remove(suscriptor)) {
+            return;
+        }
+
+        desbordados.increment();
+        suscriptor.cola.clear();
+
+        envios.execute(() -> {
+            if (enviar(suscriptor, SseEmitter.event().name("desbordado").data("{}", MediaType.APPLICATION_JSON))) {
+                suscriptor.emitter.complete();
+            }
+        });
+    }
+
+    // Secuencia de un Last-Event-ID emitido por esta instancia, -1 si lo emitio otra o no tiene
+    // el formato de los ids
+    private long secuenciaDe(String ultimoId) {
+        String prefijo = instancia + "-";
+
+        if (!ultimoId.startsWith(prefijo)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(ultimoId.substring(prefijo.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Una reserva coincide si su estado anterior o el nuevo entran en el filtro, asi quien mira un
+    // aula se entera tambien de las reservas que salen de ella
+    private static boolean coincide(FiltroEventos filtro, Enviado enviado) {
+        if (enviado.estados().isEmpty()) {
+            // Cambios de catalogo: con filtro por aula solo los de ese aula, o los que afectan a varias
+            return filtro.getAulaId() == null
+                    || !"aula".equals(enviado.nombre())
+                    || enviado.cambio().id() == null
+                    || filtro.getAulaId().equals(enviado.cambio().id());
+        }
+
+        return enviado.estados().stream().anyMatch(reserva ->
+                (filtro.getAulaId() == null || filtro.getAulaId().equals(reserva.aulaId()))
+                        && (filtro.getDesde() == null || !reserva.fecha().isBefore(filtro.getDesde()))
+                        && (filtro.getHasta() == null || !reserva.fecha().isAfter(filtro.getHasta())));
+    }
+
+    private record Enviado(long id, String nombre, CambioEvento cambio, List<ReservaSnapshot> estados) {
+    }
+
+    private static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final FiltroEventos filtro;
+        private final Queue<Enviado> cola;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final ReentrantLock escritura = new ReentrantLock();
+
+        private Suscriptor(SseEmitter emitter, FiltroEventos filtro, Queue<Enviado> cola) {
+            this.emitter = emitter;
+            this.filtro = filtro;
+            this.cola = cola;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.isaac.reservas.services.version;
+
+// Colecciones con version propia para las peticiones condicionales (ETag)
+public enum Coleccion {
+    AULAS,
+    HORARIOS,
+    USUARIOS,
+    RESERVAS
+}
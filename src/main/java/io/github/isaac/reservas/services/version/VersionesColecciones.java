@@ -0,0 +1,72 @@
+package io.github.isaac.reservas.services.version;
+
+import io.github.isaac.reservas.repositories.VersionesJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Version de cada coleccion guardada en la base de datos (db/migration/V7__versiones_colecciones.sql).
+// La suben los triggers en la misma transaccion que escribe, asi todas las instancias dan el mismo
+// ETag y ninguna responde 304 con datos que otra ya ha cambiado. El ETag de una coleccion combina
+// su version con la de las colecciones que aparecen en sus respuestas (aulas, horarios y usuarios
+// incluyen sus reservas y las reservas incluyen aula, horario y usuario)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionesColecciones {
+    private static final Map<Coleccion, List<Coleccion>> DEPENDENCIAS = Map.of(
+            Coleccion.AULAS, List.of(Coleccion.AULAS, Coleccion.RESERVAS),
+            Coleccion.HORARIOS, List.of(Coleccion.HORARIOS, Coleccion.RESERVAS),
+            Coleccion.USUARIOS, List.of(Coleccion.USUARIOS, Coleccion.RESERVAS),
+            Coleccion.RESERVAS, List.of(Coleccion.RESERVAS, Coleccion.AULAS, Coleccion.HORARIOS, Coleccion.USUARIOS)
+    );
+
+    private final VersionesJdbcRepository repositorio;
+
+    // Version de una sola coleccion, p. ej. para la clave de una cache (CatalogosBase)
+    public long version(Coleccion coleccion) {
+        return repositorio.leer().getOrDefault(coleccion.name(), 0L);
+    }
+
+    // ETag fuerte con el formato "v1-v2..."
+    public String etag(Coleccion coleccion) {
+        return etag(coleccion, null);
+    }
+
+    // ETag con la forma de la respuesta al final, "v1-v2...-variante", para respuestas de la
+    // misma URL que cambian sin que cambie ninguna coleccion (p. ej. las reservas desde hoy)
+    public String etag(Coleccion coleccion, String variante) {
+        Map<String, Long> versiones = repositorio.leer();
+        StringBuilder etag = new StringBuilder("\"");
+
+        for (Coleccion dependencia : DEPENDENCIAS.get(coleccion)) {
+            if (etag.length() > 1) {
+                etag.append('-');
+            }
+
+            etag.append(versiones.getOrDefault(dependencia.name(), 0L));
+        }
+
+        if (variante != null) {
+            etag.append('-').append(variante);
+        }
+
+        return etag.append('"').toString();
+    }
+
+    // Cada escritura deja una fila de cambio, se suman a la version para que la lectura del ETag
+    // siga siendo de pocas filas. Da igual cuantas instancias lo hagan a la vez
+    @Scheduled(fixedDelayString = "${reservas.versiones.compactacion:PT1M}", initialDelayString = "${reservas.versiones.compactacion:PT1M}")
+    public void compactar() {
+        try {
+            int compactados = repositorio.compactar();
+            log.debug("Compactados {} cambios de colecciones", compactados);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron compactar los cambios de colecciones: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+-- Esquema inicial, el mismo que generaba Hibernate con ddl-auto=update. En una base de datos que
+-- ya tenia las tablas Flyway marca esta version como aplicada (baseline) y empieza por la V2
+
+CREATE TABLE usuarios (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre varchar(255),
+    roles varchar(255),
+    email varchar(255),
+    password varchar(255),
+    enabled boolean NOT NULL
+);
+
+CREATE TABLE aulas (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre varchar(255),
+    capacidad integer NOT NULL,
+    es_ordenadores boolean NOT NULL
+);
+
+CREATE TABLE horarios (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    dia_semana varchar(255) CHECK (dia_semana IN ('LUNES', 'MARTES', 'MIERCOLES', 'JUEVES', 'VIERNES', 'SABADO', 'DOMINGO')),
+    tipo varchar(255) CHECK (tipo IN ('RECREO', 'LECTIVA', 'MEDIODIA')),
+    inicio time(6),
+    fin time(6),
+    session_dia integer NOT NULL
+);
+
+CREATE TABLE series_reserva (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha_inicio date,
+    fecha_fin date,
+    recurrencia varchar(255) CHECK (recurrencia IN ('SEMANAL', 'QUINCENAL', 'CADA_TRES_SEMANAS', 'CADA_CUATRO_SEMANAS')),
+    motivo varchar(255),
+    asistentes integer NOT NULL,
+    create_at date,
+    aula_id bigint NOT NULL REFERENCES aulas (id) ON DELETE CASCADE,
+    horario_id bigint NOT NULL REFERENCES horarios (id) ON DELETE CASCADE,
+    usuario_id bigint NOT NULL REFERENCES usuarios (id) ON DELETE CASCADE
+);
+
+CREATE TABLE series_reserva_excepciones (
+    serie_id bigint NOT NULL REFERENCES series_reserva (id) ON DELETE CASCADE,
+    fecha date NOT NULL,
+    PRIMARY KEY (serie_id, fecha)
+);
+
+CREATE TABLE reservas (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha date,
+    motivo varchar(255),
+    asistentes integer NOT NULL,
+    create_at date,
+    aula_id bigint NOT NULL REFERENCES aulas (id),
+    horario_id bigint NOT NULL REFERENCES horarios (id),
+    usuario_id bigint NOT NULL REFERENCES usuarios (id),
+    serie_id bigint REFERENCES series_reserva (id)
+);
@@ -0,0 +1,62 @@
+-- Restriccion de exclusion para que dos reservas de la misma aula no puedan solaparse,
+-- aunque lleguen a la vez. Cada reserva guarda su tramo efectivo (fecha + horas del horario)
+-- en la columna periodo, que mantienen los triggers. Es idempotente porque las bases de datos
+-- anteriores a las migraciones ya lo tenian aplicado
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE reservas ADD COLUMN IF NOT EXISTS periodo tsrange;
+
+-- Tramo de una reserva al insertarla o al cambiar su fecha u horario
+CREATE OR REPLACE FUNCTION reservas_calcular_periodo() RETURNS trigger AS $$
+BEGIN
+    SELECT tsrange(NEW.fecha + h.inicio, NEW.fecha + h.fin, '[)')
+    INTO NEW.periodo
+    FROM horarios h
+    WHERE h.id = NEW.horario_id;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS reservas_periodo ON reservas;
+
+CREATE TRIGGER reservas_periodo
+    BEFORE INSERT OR UPDATE OF fecha, horario_id ON reservas
+    FOR EACH ROW EXECUTE FUNCTION reservas_calcular_periodo();
+
+-- Cambiar las horas de un horario mueve todas sus reservas
+CREATE OR REPLACE FUNCTION horarios_actualizar_periodos() RETURNS trigger AS $$
+BEGIN
+    UPDATE reservas r
+    SET periodo = tsrange(r.fecha + NEW.inicio, r.fecha + NEW.fin, '[)')
+    WHERE r.horario_id = NEW.id;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS horarios_periodo ON horarios;
+
+CREATE TRIGGER horarios_periodo
+    AFTER UPDATE OF inicio, fin ON horarios
+    FOR EACH ROW
+    WHEN (OLD.inicio IS DISTINCT FROM NEW.inicio OR OLD.fin IS DISTINCT FROM NEW.fin)
+    EXECUTE FUNCTION horarios_actualizar_periodos();
+
+-- Reservas creadas antes de existir la columna
+UPDATE reservas r
+SET periodo = tsrange(r.fecha + h.inicio, r.fecha + h.fin, '[)')
+FROM horarios h
+WHERE h.id = r.horario_id
+  AND r.periodo IS NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'reservas_sin_solapamiento') THEN
+        ALTER TABLE reservas
+            ADD CONSTRAINT reservas_sin_solapamiento
+            EXCLUDE USING gist (aula_id WITH =, periodo WITH &&);
+    END IF;
+END;
+$$;
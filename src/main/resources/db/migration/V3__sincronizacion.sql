@@ -0,0 +1,62 @@
+-- Version de cambio de cada fila y lapidas de los borrados para la sincronizacion incremental
+-- (GET /sync). La version es el id de la transaccion que escribio la fila, lo asignan los
+-- triggers en cualquier escritura (JPA, JDBC, cascadas o SQL a mano). Es idempotente porque
+-- las bases de datos anteriores a las migraciones ya lo tenian aplicado
+
+CREATE OR REPLACE FUNCTION sincronizacion_version() RETURNS trigger AS $$
+BEGIN
+    NEW.version_cambio := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Cada borrado deja una lapida con el recurso (argumento del trigger) y el id eliminado
+CREATE OR REPLACE FUNCTION sincronizacion_eliminacion() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO eliminaciones (recurso, entidad_id, version_cambio)
+    VALUES (TG_ARGV[0], OLD.id, pg_current_xact_id()::text::bigint);
+
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE IF NOT EXISTS eliminaciones (
+    recurso varchar(16) NOT NULL,
+    entidad_id bigint NOT NULL,
+    version_cambio bigint NOT NULL,
+    eliminado_en timestamp NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS eliminaciones_version_cambio ON eliminaciones (version_cambio);
+CREATE INDEX IF NOT EXISTS eliminaciones_eliminado_en ON eliminaciones (eliminado_en);
+
+-- Version mas alta de las lapidas ya purgadas: un cliente con un cursor anterior debe
+-- descargarlo todo de nuevo porque se habria perdido borrados
+CREATE TABLE IF NOT EXISTS sincronizacion_horizonte (
+    id int PRIMARY KEY CHECK (id = 1),
+    version_cambio bigint NOT NULL
+);
+
+INSERT INTO sincronizacion_horizonte (id, version_cambio) VALUES (1, 0) ON CONFLICT DO NOTHING;
+
+-- Columna, indice y triggers en cada tabla sincronizable
+DO $$
+DECLARE
+    tabla text;
+    recurso text;
+BEGIN
+    FOR tabla, recurso IN VALUES ('reservas', 'reserva'), ('aulas', 'aula'), ('horarios', 'horario'), ('usuarios', 'usuario') LOOP
+        EXECUTE format('ALTER TABLE %I ADD COLUMN IF NOT EXISTS version_cambio bigint', tabla);
+        EXECUTE format('UPDATE %I SET version_cambio = pg_current_xact_id()::text::bigint WHERE version_cambio IS NULL', tabla);
+        EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I (version_cambio)', tabla || '_version_cambio', tabla);
+
+        EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', tabla || '_version', tabla);
+        EXECUTE format('CREATE TRIGGER %I BEFORE INSERT OR UPDATE ON %I FOR EACH ROW EXECUTE FUNCTION sincronizacion_version()',
+                tabla || '_version', tabla);
+
+        EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', tabla || '_eliminacion', tabla);
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE ON %I FOR EACH ROW EXECUTE FUNCTION sincronizacion_eliminacion(%L)',
+                tabla || '_eliminacion', tabla, recurso);
+    END LOOP;
+END;
+$$;
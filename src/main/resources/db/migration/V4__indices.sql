@@ -0,0 +1,29 @@
+-- Indices para las consultas frecuentes. PostgreSQL solo indexa por su cuenta las claves primarias
+-- y las restricciones unicas, no las claves ajenas
+
+-- Solapamientos (existsSolapamiento), ocupacion de aulas en un rango y cuadricula semanal por aula
+CREATE INDEX IF NOT EXISTS reservas_aula_fecha ON reservas (aula_id, fecha);
+
+-- Reservas de un usuario (Usuario.reservas, cuadricula semanal por usuario) y borrado en cascada
+CREATE INDEX IF NOT EXISTS reservas_usuario_fecha ON reservas (usuario_id, fecha);
+
+-- Listado paginado por keyset (ORDER BY fecha, id), reservas desde una fecha y contadores por dia
+CREATE INDEX IF NOT EXISTS reservas_fecha_id ON reservas (fecha, id);
+
+-- Reservas de un horario: borrado en cascada y recalculo de periodos al cambiar sus horas
+CREATE INDEX IF NOT EXISTS reservas_horario ON reservas (horario_id);
+
+-- Ocurrencias de una serie. La mayoria de reservas no pertenecen a ninguna y no entran en el indice
+CREATE INDEX IF NOT EXISTS reservas_serie_fecha ON reservas (serie_id, fecha) WHERE serie_id IS NOT NULL;
+
+-- Series de un aula, horario o usuario (ON DELETE CASCADE)
+CREATE INDEX IF NOT EXISTS series_reserva_aula ON series_reserva (aula_id);
+CREATE INDEX IF NOT EXISTS series_reserva_horario ON series_reserva (horario_id);
+CREATE INDEX IF NOT EXISTS series_reserva_usuario ON series_reserva (usuario_id);
+
+-- Login y registro (findByEmail, existsByEmail). Falla si ya hay emails repetidos, hay que
+-- resolverlos antes de migrar
+CREATE UNIQUE INDEX IF NOT EXISTS usuarios_email ON usuarios (email);
+
+-- Busqueda de aulas por nombre en las importaciones de reservas
+CREATE INDEX IF NOT EXISTS aulas_nombre ON aulas (nombre);
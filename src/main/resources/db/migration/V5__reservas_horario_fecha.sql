@@ -0,0 +1,6 @@
+-- Las reservas anidadas de cada horario (ReservaJdbcRepository.primeras) se piden desde una fecha y
+-- ordenadas por ella, igual que las de aulas y usuarios. El indice por fecha sirve tambien para
+-- todo lo que usaba el de solo horario_id
+CREATE INDEX IF NOT EXISTS reservas_horario_fecha ON reservas (horario_id, fecha);
+
+DROP INDEX IF EXISTS reservas_horario;
@@ -0,0 +1,203 @@
+-- Reservas particionadas por mes de la fecha. Las consultas con fecha (solapamientos, ocupacion,
+-- cuadriculas semanales, listados con rango) solo recorren los meses que tocan, y los meses
+-- cerrados se archivan sacandolos de la tabla sin borrar ni copiar filas:
+--   - reservas: una particion por mes (reservas_pAAAA_MM) y reservas_defecto para las fechas sin
+--     mes creado. La aplicacion crea los meses por adelantado (ParticionesReservas)
+--   - reservas_archivo: misma estructura, recibe los meses archivados. Se consulta junto a las
+--     activas con la vista reservas_historico
+-- La clave primaria pasa a ser (id, fecha) porque PostgreSQL exige la clave de particion en las
+-- restricciones unicas. Los ids siguen saliendo de la misma secuencia y no se repiten
+
+-- Tabla anterior: se liberan los nombres de sus indices y de su secuencia
+ALTER TABLE reservas RENAME TO reservas_sin_particionar;
+ALTER INDEX IF EXISTS reservas_pkey RENAME TO reservas_sin_particionar_pkey;
+
+DROP INDEX IF EXISTS reservas_aula_fecha;
+DROP INDEX IF EXISTS reservas_usuario_fecha;
+DROP INDEX IF EXISTS reservas_fecha_id;
+DROP INDEX IF EXISTS reservas_horario_fecha;
+DROP INDEX IF EXISTS reservas_serie_fecha;
+DROP INDEX IF EXISTS reservas_version_cambio;
+
+-- Las tablas particionadas no admiten columnas IDENTITY (hasta PostgreSQL 17), el id pasa a una
+-- secuencia normal que continua donde se quedo la anterior
+DO $$
+DECLARE
+    ultimo bigint;
+BEGIN
+    EXECUTE format('SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM %s',
+            pg_get_serial_sequence('reservas_sin_particionar', 'id')) INTO ultimo;
+
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'reservas_sin_particionar'::regclass AND attname = 'id' AND attidentity <> '') THEN
+        ALTER TABLE reservas_sin_particionar ALTER COLUMN id DROP IDENTITY;
+    ELSE
+        ALTER TABLE reservas_sin_particionar ALTER COLUMN id DROP DEFAULT;
+        DROP SEQUENCE IF EXISTS reservas_id_seq;
+    END IF;
+
+    SELECT GREATEST(ultimo, COALESCE(max(id), 0)) INTO ultimo FROM reservas_sin_particionar;
+
+    CREATE SEQUENCE reservas_id_seq;
+    PERFORM setval('reservas_id_seq', GREATEST(ultimo, 1), ultimo > 0);
+END;
+$$;
+
+CREATE TABLE reservas (
+    id bigint NOT NULL DEFAULT nextval('reservas_id_seq'),
+    fecha date NOT NULL,
+    motivo varchar(255),
+    asistentes integer NOT NULL,
+    create_at date,
+    aula_id bigint NOT NULL REFERENCES aulas (id),
+    horario_id bigint NOT NULL REFERENCES horarios (id),
+    usuario_id bigint NOT NULL REFERENCES usuarios (id),
+    serie_id bigint REFERENCES series_reserva (id),
+    periodo tsrange,
+    version_cambio bigint,
+    PRIMARY KEY (id, fecha)
+) PARTITION BY RANGE (fecha);
+
+ALTER SEQUENCE reservas_id_seq OWNED BY reservas.id;
+
+-- Meses archivados. Sin claves ajenas: borrar un aula, horario o usuario no toca su historial
+CREATE TABLE reservas_archivo (LIKE reservas) PARTITION BY RANGE (fecha);
+
+CREATE VIEW reservas_historico AS
+    SELECT id, fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id, serie_id FROM reservas
+    UNION ALL
+    SELECT id, fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id, serie_id FROM reservas_archivo;
+
+-- Los solapamientos siempre son del mismo dia y por tanto del mismo mes, la restriccion de
+-- exclusion se crea en cada particion (PostgreSQL 16 no la admite en la tabla particionada)
+CREATE TABLE reservas_defecto PARTITION OF reservas DEFAULT;
+
+ALTER TABLE reservas_defecto
+    ADD CONSTRAINT reservas_defecto_sin_solapamiento
+    EXCLUDE USING gist (aula_id WITH =, periodo WITH &&);
+
+-- Crea la particion del mes de la fecha si no existe. Se prepara como tabla suelta, recibe las
+-- filas de ese mes que hubieran caido en reservas_defecto y se enlaza con ATTACH, que no bloquea
+-- las lecturas ni escrituras del resto de meses. Devuelve si la ha creado
+CREATE OR REPLACE FUNCTION reservas_crear_particion(mes date) RETURNS boolean AS $$
+DECLARE
+    desde date := date_trunc('month', mes)::date;
+    hasta date := (date_trunc('month', mes) + interval '1 month')::date;
+    tabla text := 'reservas_p' || to_char(mes, 'YYYY_MM');
+BEGIN
+    IF to_regclass(tabla) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE reservas INCLUDING DEFAULTS)', tabla);
+
+    -- Mover filas no es borrarlas: sin lapidas para la sincronizacion
+    PERFORM set_config('reservas.moviendo', 'on', true);
+    EXECUTE format('WITH movidas AS (DELETE FROM reservas_defecto WHERE fecha >= %L AND fecha < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM movidas', desde, hasta, tabla);
+    PERFORM set_config('reservas.moviendo', 'off', true);
+
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (aula_id WITH =, periodo WITH &&)',
+            tabla, tabla || '_sin_solapamiento');
+    EXECUTE format('ALTER TABLE reservas ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', tabla, desde, hasta);
+
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Pasa a reservas_archivo los meses que terminan antes de limite. DETACH y ATTACH solo cambian
+-- el catalogo, las filas no se copian. Se quitan las claves ajenas heredadas para que el
+-- historial no impida borrar aulas, horarios o usuarios. Devuelve los meses archivados
+CREATE OR REPLACE FUNCTION reservas_archivar_particiones(limite date) RETURNS integer AS $$
+DECLARE
+    tabla text;
+    mes date;
+    restriccion text;
+    archivadas integer := 0;
+BEGIN
+    FOR tabla IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'reservas'::regclass
+          AND c.relname ~ '^reservas_p[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        mes := to_date(substring(tabla FROM 11), 'YYYY_MM');
+
+        IF mes + interval '1 month' > limite THEN
+            CONTINUE;
+        END IF;
+
+        EXECUTE format('ALTER TABLE reservas DETACH PARTITION %I', tabla);
+
+        FOR restriccion IN
+            SELECT conname FROM pg_constraint WHERE conrelid = tabla::regclass AND contype = 'f'
+        LOOP
+            EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', tabla, restriccion);
+        END LOOP;
+
+        EXECUTE format('DROP TRIGGER IF EXISTS reservas_periodo ON %I', tabla);
+        EXECUTE format('DROP TRIGGER IF EXISTS reservas_version ON %I', tabla);
+        EXECUTE format('DROP TRIGGER IF EXISTS reservas_eliminacion ON %I', tabla);
+
+        EXECUTE format('ALTER TABLE reservas_archivo ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                tabla, mes, (mes + interval '1 month')::date);
+
+        archivadas := archivadas + 1;
+    END LOOP;
+
+    RETURN archivadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Meses con reservas y los proximos, el resto los crea la aplicacion al arrancar
+SELECT reservas_crear_particion(mes::date)
+FROM generate_series(
+        date_trunc('month', LEAST(COALESCE((SELECT min(fecha) FROM reservas_sin_particionar), current_date), current_date)),
+        date_trunc('month', GREATEST(COALESCE((SELECT max(fecha) FROM reservas_sin_particionar), current_date), current_date)) + interval '12 months',
+        interval '1 month'
+) AS mes;
+
+-- Se copian antes de crear los triggers para conservar periodo y version_cambio: los clientes de
+-- /sync no vuelven a descargar todas las reservas
+INSERT INTO reservas (id, fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id, serie_id, periodo, version_cambio)
+SELECT id, fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id, serie_id, periodo, version_cambio
+FROM reservas_sin_particionar;
+
+DROP TABLE reservas_sin_particionar;
+
+-- Los indices de la tabla particionada se crean en cada particion, tambien en las que se anadan
+CREATE INDEX reservas_aula_fecha ON reservas (aula_id, fecha);
+CREATE INDEX reservas_usuario_fecha ON reservas (usuario_id, fecha);
+CREATE INDEX reservas_fecha_id ON reservas (fecha, id);
+CREATE INDEX reservas_horario_fecha ON reservas (horario_id, fecha);
+CREATE INDEX reservas_serie_fecha ON reservas (serie_id, fecha) WHERE serie_id IS NOT NULL;
+CREATE INDEX reservas_version_cambio ON reservas (version_cambio);
+
+-- Al cambiar de mes una reserva se mueve de particion (un DELETE y un INSERT internos) y sigue
+-- existiendo, igual que al mover filas de reservas_defecto: en esos casos no se deja lapida
+CREATE OR REPLACE FUNCTION reservas_eliminacion() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('reservas.moviendo', true) = 'on' OR EXISTS (SELECT 1 FROM reservas WHERE id = OLD.id) THEN
+        RETURN OLD;
+    END IF;
+
+    INSERT INTO eliminaciones (recurso, entidad_id, version_cambio)
+    VALUES ('reserva', OLD.id, pg_current_xact_id()::text::bigint);
+
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER reservas_periodo
+    BEFORE INSERT OR UPDATE OF fecha, horario_id ON reservas
+    FOR EACH ROW EXECUTE FUNCTION reservas_calcular_periodo();
+
+CREATE TRIGGER reservas_version
+    BEFORE INSERT OR UPDATE ON reservas
+    FOR EACH ROW EXECUTE FUNCTION sincronizacion_version();
+
+CREATE TRIGGER reservas_eliminacion
+    AFTER DELETE ON reservas
+    FOR EACH ROW EXECUTE FUNCTION reservas_eliminacion();
@@ -0,0 +1,78 @@
+-- Version de cada coleccion para los ETag (VersionesColecciones), compartida por todas las
+-- instancias. Cada transaccion que escribe en una tabla deja una fila en cambios_colecciones
+-- (una sola por transaccion y coleccion, aunque haga muchas sentencias). Es solo insercion, asi
+-- dos escrituras a la vez no se bloquean entre si. La version es
+--   versiones_colecciones.version + filas de cambios_colecciones
+-- y solo crece cuando se confirma una escritura, sea cual sea el orden de los commits. La
+-- aplicacion compacta periodicamente los cambios en versiones_colecciones (colecciones_compactar)
+
+CREATE TABLE versiones_colecciones (
+    coleccion varchar(16) PRIMARY KEY,
+    version bigint NOT NULL
+);
+
+INSERT INTO versiones_colecciones (coleccion, version)
+VALUES ('AULAS', 0), ('HORARIOS', 0), ('USUARIOS', 0), ('RESERVAS', 0);
+
+CREATE TABLE cambios_colecciones (
+    coleccion varchar(16) NOT NULL,
+    transaccion bigint NOT NULL,
+    PRIMARY KEY (coleccion, transaccion)
+);
+
+CREATE OR REPLACE FUNCTION colecciones_registrar_cambio(coleccion text) RETURNS void AS $$
+BEGIN
+    INSERT INTO cambios_colecciones (coleccion, transaccion)
+    VALUES (coleccion, pg_current_xact_id()::text::bigint)
+    ON CONFLICT DO NOTHING;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION colecciones_cambio() RETURNS trigger AS $$
+BEGIN
+    PERFORM colecciones_registrar_cambio(TG_ARGV[0]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Pasa los cambios confirmados a versiones_colecciones en una sola transaccion, la suma no
+-- cambia para ningun lector. Los cambios que se confirmen mientras tanto se quedan para la
+-- siguiente. Devuelve los cambios compactados
+CREATE OR REPLACE FUNCTION colecciones_compactar() RETURNS integer AS $$
+DECLARE
+    compactados integer;
+BEGIN
+    WITH borrados AS (
+        DELETE FROM cambios_colecciones RETURNING coleccion
+    ), totales AS (
+        SELECT coleccion, count(*) AS total FROM borrados GROUP BY coleccion
+    ), actualizadas AS (
+        UPDATE versiones_colecciones v
+        SET version = v.version + t.total
+        FROM totales t
+        WHERE v.coleccion = t.coleccion
+        RETURNING t.total
+    )
+    SELECT COALESCE(sum(total), 0) INTO compactados FROM actualizadas;
+
+    RETURN compactados;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Un trigger por sentencia en cada tabla. En reservas se dispara tambien con los borrados en
+-- cascada de aulas, horarios y usuarios
+CREATE TRIGGER reservas_coleccion
+    AFTER INSERT OR UPDATE OR DELETE ON reservas
+    FOR EACH STATEMENT EXECUTE FUNCTION colecciones_cambio('RESERVAS');
+
+CREATE TRIGGER aulas_coleccion
+    AFTER INSERT OR UPDATE OR DELETE ON aulas
+    FOR EACH STATEMENT EXECUTE FUNCTION colecciones_cambio('AULAS');
+
+CREATE TRIGGER horarios_coleccion
+    AFTER INSERT OR UPDATE OR DELETE ON horarios
+    FOR EACH STATEMENT EXECUTE FUNCTION colecciones_cambio('HORARIOS');
+
+CREATE TRIGGER usuarios_coleccion
+    AFTER INSERT OR UPDATE OR DELETE ON usuarios
+    FOR EACH STATEMENT EXECUTE FUNCTION colecciones_cambio('USUARIOS');
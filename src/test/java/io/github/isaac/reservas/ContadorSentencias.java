@@ -0,0 +1,61 @@
+package io.github.isaac.reservas;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+// Cuenta las sentencias SQL que se preparan en cada conexion del DataSource de la aplicacion, sean
+// de Hibernate o de JdbcTemplate. Se cuentan por hilo: las de las tareas programadas que se ejecuten
+// a la vez no se mezclan con las de la peticion de la prueba (MockMvc la atiende en el mismo hilo)
+public class ContadorSentencias implements BeanPostProcessor {
+    private static final Set<String> SENTENCIAS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<long[]> TOTAL = ThreadLocal.withInitial(() -> new long[1]);
+
+    public void reiniciar() {
+        TOTAL.get()[0] = 0;
+    }
+
+    public long total() {
+        return TOTAL.get()[0];
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String nombre) {
+        if (!(bean instanceof DataSource dataSource) || !"dataSource".equals(nombre)) {
+            return bean;
+        }
+
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return contar(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String usuario, String password) throws SQLException {
+                return contar(super.getConnection(usuario, password));
+            }
+        };
+    }
+
+    private static Connection contar(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(ContadorSentencias.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    if (SENTENCIAS.contains(metodo.getName())) {
+                        TOTAL.get()[0]++;
+                    }
+
+                    try {
+                        return metodo.invoke(conexion, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
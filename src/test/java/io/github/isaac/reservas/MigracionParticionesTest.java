@@ -0,0 +1,147 @@
+package io.github.isaac.reservas;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// La V6 convierte reservas en una tabla particionada en una base de datos que ya tiene datos. Se
+// migra un esquema aparte hasta la V5, se cargan reservas y se aplica el resto de migraciones:
+// las filas conservan id, tramo y version de sincronizacion y las funciones de mantenimiento de
+// particiones (ParticionesReservas) funcionan sobre el resultado
+class MigracionParticionesTest extends PruebaPostgres {
+    private static final String ESQUEMA = "migracion_particiones";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private SingleConnectionDataSource conexion;
+    private JdbcTemplate jdbc;
+    private final LocalDate hoy = LocalDate.now();
+    private final LocalDate antigua = hoy.withDayOfMonth(1).minusMonths(26).plusDays(9);
+
+    @BeforeEach
+    void esquema() throws SQLException {
+        HikariDataSource base = dataSource.unwrap(HikariDataSource.class);
+        String url = base.getJdbcUrl() + (base.getJdbcUrl().contains("?") ? "&" : "?") + "currentSchema=" + ESQUEMA;
+
+        conexion = new SingleConnectionDataSource(url, base.getUsername(), base.getPassword(), true);
+        jdbc = new JdbcTemplate(conexion);
+    }
+
+    @AfterEach
+    void borrarEsquema() {
+        conexion.destroy();
+        new JdbcTemplate(dataSource).execute("DROP SCHEMA IF EXISTS " + ESQUEMA + " CASCADE");
+    }
+
+    @Test
+    void particionaConservandoLasReservas() {
+        migrar("5");
+
+        Long usuario = jdbc.queryForObject("""
+                INSERT INTO usuarios (nombre, roles, email, password, enabled)
+                VALUES ('Prueba', 'ROLE_ADMIN', 'migracion@prueba.es', '{noop}secreto', true) RETURNING id
+                """, Long.class);
+        Long aula = jdbc.queryForObject("""
+                INSERT INTO aulas (nombre, capacidad, es_ordenadores) VALUES ('Aula', 30, false) RETURNING id
+                """, Long.class);
+        Long horario = jdbc.queryForObject("""
+                INSERT INTO horarios (dia_semana, tipo, inicio, fin, session_dia)
+                VALUES ('LUNES', 'LECTIVA', TIME '09:00', TIME '10:00', 1) RETURNING id
+                """, Long.class);
+        insertar(aula, horario, usuario, antigua);
+        insertar(aula, horario, usuario, hoy);
+
+        List<Map<String, Object>> antes = filas("reservas");
+
+        migrar(null);
+
+        // Mismas filas, con el tramo y la version de sincronizacion que tenian, y ninguna sin mes
+        assertThat(filas("reservas")).isEqualTo(antes);
+        assertThat(total("reservas_defecto")).isZero();
+        assertThat(total("eliminaciones")).isZero();
+
+        // Un mes por cada uno desde la reserva mas antigua hasta doce meses despues de hoy
+        long meses = ChronoUnit.MONTHS.between(antigua.withDayOfMonth(1), hoy.withDayOfMonth(1).plusMonths(12)) + 1;
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM pg_inherits WHERE inhparent = 'reservas'::regclass", Long.class))
+                .isEqualTo(meses + 1);
+
+        // La secuencia sigue despues de los ids copiados
+        Long maximo = jdbc.queryForObject("SELECT max(id) FROM reservas", Long.class);
+        assertThat(insertar(aula, horario, usuario, hoy.plusDays(1))).isGreaterThan(maximo);
+
+        // La restriccion de exclusion se mantiene en cada particion
+        assertThatThrownBy(() -> insertar(aula, horario, usuario, hoy))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("sin_solapamiento");
+
+        // Un mes sin particion cae en reservas_defecto y pasa a la suya al crearla, sin lapidas
+        LocalDate lejana = hoy.withDayOfMonth(1).plusMonths(20);
+        Long id = insertar(aula, horario, usuario, lejana);
+        assertThat(particion(id)).isEqualTo("reservas_defecto");
+        assertThat(jdbc.queryForObject("SELECT reservas_crear_particion(?)", Boolean.class, lejana)).isTrue();
+        assertThat(particion(id)).isEqualTo("reservas_p" + lejana.getYear() + "_" + "%02d".formatted(lejana.getMonthValue()));
+        assertThat(total("reservas_defecto")).isZero();
+        assertThat(total("eliminaciones")).isZero();
+
+        // Archivar mueve los meses cerrados a reservas_archivo y el historico los sigue viendo
+        LocalDate limite = hoy.withDayOfMonth(1).minusMonths(12);
+        Integer archivadas = jdbc.queryForObject("SELECT reservas_archivar_particiones(?)", Integer.class, limite);
+        Long vieja = (Long) antes.get(0).get("id");
+
+        assertThat(archivadas).isEqualTo((int) ChronoUnit.MONTHS.between(antigua.withDayOfMonth(1), limite));
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM reservas WHERE id = ?", Long.class, vieja)).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM reservas_archivo WHERE id = ?", Long.class, vieja)).isOne();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM reservas_historico WHERE id = ?", Long.class, vieja)).isOne();
+        assertThat(total("eliminaciones")).isZero();
+
+        // Sin claves ajenas en el archivo: el historial no impide borrar el aula
+        jdbc.update("DELETE FROM reservas WHERE aula_id = ?", aula);
+        jdbc.update("DELETE FROM aulas WHERE id = ?", aula);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM reservas_historico WHERE aula_id = ?", Long.class, aula)).isOne();
+    }
+
+    private void migrar(String version) {
+        Flyway.configure()
+                .dataSource(conexion)
+                .schemas(ESQUEMA)
+                .target(version != null ? version : "latest")
+                .load()
+                .migrate();
+    }
+
+    private Long insertar(Long aula, Long horario, Long usuario, LocalDate fecha) {
+        return jdbc.queryForObject("""
+                INSERT INTO reservas (fecha, motivo, asistentes, create_at, aula_id, horario_id, usuario_id)
+                VALUES (?, 'Prueba', 1, current_date, ?, ?, ?) RETURNING id
+                """, Long.class, fecha, aula, horario, usuario);
+    }
+
+    private List<Map<String, Object>> filas(String tabla) {
+        return jdbc.queryForList("SELECT id, fecha, aula_id, periodo::text AS periodo, version_cambio FROM " + tabla + " ORDER BY id");
+    }
+
+    private long total(String tabla) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + tabla, Long.class);
+    }
+
+    private String particion(Long id) {
+        return jdbc.queryForObject("SELECT tableoid::regclass::text FROM reservas WHERE id = ?", String.class, id);
+    }
+}
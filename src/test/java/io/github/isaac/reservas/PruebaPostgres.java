@@ -0,0 +1,156 @@
+package io.github.isaac.reservas;
+
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.enums.DiaSemana;
+import io.github.isaac.reservas.enums.TipoHorario;
+import io.github.isaac.reservas.repositories.RepositoryAula;
+import io.github.isaac.reservas.repositories.RepositoryHorario;
+import io.github.isaac.reservas.repositories.RepositoryReserva;
+import io.github.isaac.reservas.repositories.RepositoryUsuario;
+import io.github.isaac.reservas.services.auth.JWTService;
+import io.github.isaac.reservas.services.auth.UsuarioPrincipal;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Base de las pruebas de integracion: arrancan la aplicacion completa contra un PostgreSQL 16
+// migrado por Flyway. Con RESERVAS_TEST_DB_URL (una base de datos vacia) se usa esa, si no se
+// levanta un contenedor. Sin ninguna de las dos las pruebas se saltan
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(ContadorSentencias.class)
+public abstract class PruebaPostgres {
+    private static final String URL = System.getenv("RESERVAS_TEST_DB_URL");
+    private static PostgreSQLContainer<?> contenedor;
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected RepositoryUsuario usuarios;
+
+    @Autowired
+    protected RepositoryAula aulas;
+
+    @Autowired
+    protected RepositoryHorario horarios;
+
+    @Autowired
+    protected RepositoryReserva reservas;
+
+    @Autowired
+    protected ContadorSentencias sentencias;
+
+    @Autowired
+    private JWTService jwt;
+
+    @BeforeAll
+    static void baseDatosDisponible() {
+        assumeTrue(URL != null || DockerClientFactory.instance().isDockerAvailable(),
+                "Hace falta Docker o RESERVAS_TEST_DB_URL");
+    }
+
+    @DynamicPropertySource
+    static void baseDatos(DynamicPropertyRegistry registro) {
+        if (URL != null) {
+            registro.add("spring.datasource.url", () -> URL);
+            registro.add("spring.datasource.username", () -> variable("RESERVAS_TEST_DB_USER", "postgres"));
+            registro.add("spring.datasource.password", () -> variable("RESERVAS_TEST_DB_PASSWORD", ""));
+            return;
+        }
+
+        PostgreSQLContainer<?> postgres = contenedor();
+        registro.add("spring.datasource.url", postgres::getJdbcUrl);
+        registro.add("spring.datasource.username", postgres::getUsername);
+        registro.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    // Un solo contenedor para todas las clases, Ryuk lo para al terminar
+    private static synchronized PostgreSQLContainer<?> contenedor() {
+        if (contenedor == null) {
+            contenedor = new PostgreSQLContainer<>("postgres:16-alpine");
+            contenedor.start();
+        }
+
+        return contenedor;
+    }
+
+    private static String variable(String nombre, String defecto) {
+        String valor = System.getenv(nombre);
+        return valor != null ? valor : defecto;
+    }
+
+    // Cabecera Authorization con un token firmado por la propia aplicacion
+    protected String token(Usuario usuario) {
+        UsuarioPrincipal principal = new UsuarioPrincipal(usuario.getId(), usuario.getEmail(),
+                usuario.getPassword(), usuario.getRoles(), true);
+        return "Bearer " + jwt.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    protected Usuario usuario(String roles) {
+        String email = UUID.randomUUID() + "@prueba.es";
+        return usuarios.save(Usuario.builder()
+                .nombre("Prueba")
+                .email(email)
+                .password("{noop}secreto")
+                .roles(roles)
+                .enabled(true)
+                .build());
+    }
+
+    protected Aula aula(int capacidad) {
+        return aulas.save(Aula.builder()
+                .nombre("Aula " + UUID.randomUUID())
+                .capacidad(capacidad)
+                .build());
+    }
+
+    protected Horario horario(LocalTime inicio, LocalTime fin) {
+        return horarios.save(Horario.builder()
+                .diaSemana(DiaSemana.LUNES)
+                .tipo(TipoHorario.LECTIVA)
+                .inicio(inicio)
+                .fin(fin)
+                .sessionDia(1)
+                .build());
+    }
+
+    // Una reserva por dia a partir de desde, en el mismo aula y tramo
+    protected List<Reserva> reservas(Aula aula, Horario horario, Usuario usuario, LocalDate desde, int total) {
+        List<Reserva> nuevas = new ArrayList<>();
+
+        for (int i = 0; i < total; i++) {
+            nuevas.add(Reserva.builder()
+                    .fecha(desde.plusDays(i))
+                    .motivo("Prueba")
+                    .asistentes(1)
+                    .createAt(LocalDate.now())
+                    .aula(aula)
+                    .horario(horario)
+                    .usuario(usuario)
+                    .build());
+        }
+
+        return reservas.saveAll(nuevas);
+    }
+}
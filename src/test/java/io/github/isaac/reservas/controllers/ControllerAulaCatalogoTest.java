@@ -0,0 +1,60 @@
+package io.github.isaac.reservas.controllers;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.config.CacheConfig;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// La cache de aulas guarda solo el catalogo: reservar no la invalida pero el total sale al dia,
+// y un cambio del aula (aunque lo haga otra instancia) cambia la version de la clave
+class ControllerAulaCatalogoTest extends PruebaPostgres {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void reservarNoInvalidaElCatalogoYElTotalSaleAlDia() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        String autorizacion = token(usuario);
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(16, 0), LocalTime.of(17, 0));
+
+        mvc.perform(get("/aulas/{id}", aula.getId()).header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalReservas").value(0));
+
+        long aciertos = catalogo().stats().hitCount();
+        reservas(aula, horario, usuario, LocalDate.now(), 2);
+
+        mvc.perform(get("/aulas/{id}", aula.getId()).header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalReservas").value(2));
+        assertThat(catalogo().stats().hitCount()).isEqualTo(aciertos + 1);
+
+        aula.setNombre("Renombrada " + aula.getId());
+        aulas.save(aula);
+
+        mvc.perform(get("/aulas/{id}", aula.getId()).header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nombre").value("Renombrada " + aula.getId()))
+                .andExpect(jsonPath("$.totalReservas").value(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> catalogo() {
+        return (Cache<Object, Object>) cacheManager.getCache(CacheConfig.AULA).getNativeCache();
+    }
+}
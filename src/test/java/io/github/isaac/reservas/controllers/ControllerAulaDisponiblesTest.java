@@ -0,0 +1,41 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sin hasta se busca en la fecha pedida, que tiene que ser del dia de la semana del horario: otro
+// dia ese tramo no existe y ningun aula esta libre en el
+class ControllerAulaDisponiblesTest extends PruebaPostgres {
+
+    @Test
+    void fechaDeOtroDiaQueElHorarioSeRechaza() throws Exception {
+        String autorizacion = token(usuario("ROLE_ADMIN"));
+        Aula aula = aula(30);
+        Horario lunes = horario(LocalTime.of(11, 0), LocalTime.of(12, 0));
+        LocalDate proximoLunes = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        mvc.perform(get("/aulas/disponibles").header("Authorization", autorizacion)
+                        .param("horarioId", lunes.getId().toString())
+                        .param("fecha", proximoLunes.plusDays(1).toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("La fecha no cae en el dia del horario (LUNES)"));
+
+        mvc.perform(get("/aulas/disponibles").header("Authorization", autorizacion)
+                        .param("horarioId", lunes.getId().toString())
+                        .param("fecha", proximoLunes.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(aula.getId().intValue())));
+    }
+}
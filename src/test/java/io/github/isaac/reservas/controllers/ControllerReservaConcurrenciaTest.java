@@ -0,0 +1,78 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.services.ocupacion.OcupacionAulas;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Dos reservas del mismo aula y tramo a la vez: las dos pasan el indice en memoria (ninguna
+// ve a la otra) y la restriccion de exclusion de la base de datos deja entrar solo a una
+class ControllerReservaConcurrenciaTest extends PruebaPostgres {
+
+    @MockitoSpyBean
+    private OcupacionAulas ocupacion;
+
+    @Test
+    void soloUnaReservaConcurrenteDelMismoTramoSeGuarda() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(10, 0), LocalTime.of(11, 0));
+        LocalDate fecha = LocalDate.now().plusDays(7);
+
+        // Ninguna peticion inserta hasta que las dos han comprobado el indice
+        CyclicBarrier barrera = new CyclicBarrier(2);
+        doAnswer(invocacion -> {
+            Object libre = invocacion.callRealMethod();
+            barrera.await(10, TimeUnit.SECONDS);
+            return libre;
+        }).when(ocupacion).haySolapamiento(any(), any(), any(), any(), any());
+
+        String cuerpo = """
+                {"usuarioId": %d, "horarioId": %d, "aulaId": %d, "fecha": "%s", "motivo": "Examen", "asistentes": 20}
+                """.formatted(usuario.getId(), horario.getId(), aula.getId(),
+                fecha.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        Callable<MvcResult> reservar = () -> mvc.perform(post("/reservas")
+                        .header("Authorization", token(usuario))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cuerpo))
+                .andReturn();
+
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        List<MvcResult> resultados;
+
+        try {
+            List<Future<MvcResult>> peticiones = hilos.invokeAll(List.of(reservar, reservar), 30, TimeUnit.SECONDS);
+            resultados = List.of(peticiones.get(0).get(), peticiones.get(1).get());
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertThat(resultados).extracting(r -> r.getResponse().getStatus())
+                .containsExactlyInAnyOrder(201, 400);
+        assertThat(resultados).filteredOn(r -> r.getResponse().getStatus() == 400)
+                .singleElement()
+                .satisfies(r -> assertThat(r.getResponse().getContentAsString()).contains("Hay solapamiento en el tramo"));
+        assertThat(reservas.findAll()).filteredOn(r -> r.getAula().getId().equals(aula.getId())).hasSize(1);
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// El indice de ocupacion solo recibe los eventos de esta instancia. Una reserva borrada por otra
+// instancia (aqui directamente con el repositorio, sin eventos) sigue ocupando el tramo en el
+// indice, pero la base de datos lo desmiente y la reserva nueva se acepta
+class ControllerReservaIndiceTest extends PruebaPostgres {
+
+    @Test
+    void tramoLiberadoFueraDeLaInstanciaSePuedeReservar() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(16, 0), LocalTime.of(17, 0));
+        LocalDate fecha = LocalDate.now().plusDays(3);
+
+        String cuerpo = """
+                {"usuarioId": %d, "horarioId": %d, "aulaId": %d, "fecha": "%s", "motivo": "Examen", "asistentes": 20}
+                """.formatted(usuario.getId(), horario.getId(), aula.getId(),
+                fecha.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+
+        mvc.perform(post("/reservas").header("Authorization", token(usuario))
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated());
+
+        // Como si la borrara otra instancia: el indice de esta no se entera
+        reservas.deleteAll(reservas.findAll().stream().filter(r -> r.getAula().getId().equals(aula.getId())).toList());
+
+        mvc.perform(post("/reservas").header("Authorization", token(usuario))
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isCreated());
+
+        // El dia se ha recargado: un tercer intento choca con la reserva que acaba de entrar
+        mvc.perform(post("/reservas").header("Authorization", token(usuario))
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isBadRequest());
+
+        assertThat(reservas.findAll()).filteredOn(r -> r.getAula().getId().equals(aula.getId())).hasSize(1);
+    }
+}
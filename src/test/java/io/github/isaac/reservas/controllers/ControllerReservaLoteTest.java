@@ -0,0 +1,70 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.repositories.ReservaJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Otra transaccion reserva uno de los tramos del lote despues de validarlo y antes del INSERT:
+// la restriccion de exclusion rechaza el lote, pero solo ese elemento sale como fallido
+class ControllerReservaLoteTest extends PruebaPostgres {
+
+    @MockitoSpyBean
+    private ReservaJdbcRepository reservasJdbc;
+
+    @Test
+    void soloElElementoQueChocaConOtraTransaccionSeRechaza() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(18, 0), LocalTime.of(19, 0));
+        LocalDate fecha = LocalDate.now().plusDays(10);
+
+        AtomicBoolean reservada = new AtomicBoolean();
+        doAnswer(invocacion -> {
+            // En otro hilo para que se confirme antes del INSERT del lote
+            if (reservada.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> reservas(aula, horario, usuario, fecha.plusDays(1), 1))
+                        .get(10, TimeUnit.SECONDS);
+            }
+
+            return invocacion.callRealMethod();
+        }).when(reservasJdbc).insertar(anyList());
+
+        String elemento = """
+                {"usuarioId": %d, "horarioId": %d, "aulaId": %d, "fecha": "%%s", "motivo": "Examen", "asistentes": 20}
+                """.formatted(usuario.getId(), horario.getId(), aula.getId());
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        String cuerpo = "{\"reservas\": [%s, %s, %s]}".formatted(
+                elemento.formatted(fecha.format(formato)),
+                elemento.formatted(fecha.plusDays(1).format(formato)),
+                elemento.formatted(fecha.plusDays(2).format(formato)));
+
+        mvc.perform(post("/reservas/batch").header("Authorization", token(usuario))
+                        .contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].creada").value(true))
+                .andExpect(jsonPath("$[1].creada").value(false))
+                .andExpect(jsonPath("$[1].error").value("Hay solapamiento en el tramo"))
+                .andExpect(jsonPath("$[2].creada").value(true));
+
+        assertThat(reservas.findAll()).filteredOn(r -> r.getAula().getId().equals(aula.getId())).hasSize(3);
+    }
+}
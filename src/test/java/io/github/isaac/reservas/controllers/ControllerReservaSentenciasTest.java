@@ -0,0 +1,60 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Reserva;
+import io.github.isaac.reservas.entities.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Cada lectura de reservas son dos sentencias SQL, tenga la pagina una fila o muchas: la version
+// de las colecciones para el ETag (JdbcTemplate) y las reservas con sus relaciones (Hibernate, sin
+// N+1). Se cuentan en el DataSource (ContadorSentencias), no solo las de Hibernate
+class ControllerReservaSentenciasTest extends PruebaPostgres {
+    private String autorizacion;
+    private Usuario usuario;
+    private Horario horario;
+
+    @BeforeEach
+    void datos() {
+        usuario = usuario("ROLE_ADMIN");
+        autorizacion = token(usuario);
+        horario = horario(LocalTime.of(8, 0), LocalTime.of(9, 0));
+    }
+
+    @Test
+    void listadoUsaDosSentenciasPorPeticion() throws Exception {
+        Aula una = aula(30);
+        Aula muchas = aula(30);
+        reservas(una, horario, usuario, LocalDate.now(), 1);
+        reservas(muchas, horario, usuario, LocalDate.now(), 40);
+
+        assertEquals(2, sentencias(get("/reservas").param("aulaId", una.getId().toString())));
+        assertEquals(2, sentencias(get("/reservas").param("aulaId", muchas.getId().toString())));
+        assertEquals(2, sentencias(get("/reservas").param("aulaId", muchas.getId().toString()).param("size", "10")));
+    }
+
+    @Test
+    void detalleUsaDosSentenciasPorPeticion() throws Exception {
+        List<Reserva> creadas = reservas(aula(30), horario, usuario, LocalDate.now(), 20);
+
+        assertEquals(2, sentencias(get("/reservas/{id}", creadas.get(0).getId())));
+        assertEquals(2, sentencias(get("/reservas/{id}", creadas.get(19).getId())));
+    }
+
+    private long sentencias(MockHttpServletRequestBuilder peticion) throws Exception {
+        sentencias.reiniciar();
+        mvc.perform(peticion.header("Authorization", autorizacion)).andExpect(status().isOk());
+        return sentencias.total();
+    }
+}
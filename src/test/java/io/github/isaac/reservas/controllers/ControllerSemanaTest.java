@@ -0,0 +1,54 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// La cuadricula semanal en cache y su ETag dependen de la version de las colecciones en la base
+// de datos: una reserva que no pasa por los eventos de la instancia (aqui directamente con el
+// repositorio, como si la creara otra instancia) cambia el ETag y la cuadricula se reconstruye
+class ControllerSemanaTest extends PruebaPostgres {
+
+    @Test
+    void reservaFueraDeLaInstanciaReconstruyeLaSemana() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario lunes = horario(LocalTime.of(20, 0), LocalTime.of(21, 0));
+        LocalDate proximoLunes = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        String autorizacion = token(usuario);
+        String url = "/aulas/" + aula.getId() + "/semana";
+
+        String etag = mvc.perform(get(url).header("Authorization", autorizacion).param("fecha", proximoLunes.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dias[0].tramos[?(@.horarioId == %d)].reservas[*]".formatted(lunes.getId()), hasSize(0)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Sin cambios la misma cuadricula responde 304
+        mvc.perform(get(url).header("Authorization", autorizacion).param("fecha", proximoLunes.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        reservas(aula, lunes, usuario, proximoLunes, 1);
+
+        String nuevo = mvc.perform(get(url).header("Authorization", autorizacion).param("fecha", proximoLunes.toString())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dias[0].tramos[?(@.horarioId == %d)].reservas[*]".formatted(lunes.getId()), hasSize(1)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertThat(nuevo).isNotEqualTo(etag);
+    }
+}
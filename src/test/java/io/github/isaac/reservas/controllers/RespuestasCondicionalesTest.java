@@ -0,0 +1,116 @@
+package io.github.isaac.reservas.controllers;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.repositories.VersionesJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// El ETag sale de la version guardada en la base de datos: una escritura que no pasa por esta
+// instancia (otra instancia, SQL a mano) tambien lo cambia
+class RespuestasCondicionalesTest extends PruebaPostgres {
+
+    @MockitoSpyBean
+    private VersionesJdbcRepository versiones;
+
+    @Test
+    void escrituraDeOtraInstanciaCambiaElEtag() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        String autorizacion = token(usuario);
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(12, 0), LocalTime.of(13, 0));
+
+        String etag = mvc.perform(get("/reservas").header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/reservas").header("Authorization", autorizacion).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Sin eventos de la aplicacion, como si escribiera otra instancia
+        reservas(aula, horario, usuario, LocalDate.now(), 1);
+
+        String nuevo = mvc.perform(get("/reservas").header("Authorization", autorizacion).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertThat(nuevo).isNotEqualTo(etag);
+    }
+
+    // Una escritura confirmada entre la lectura de la version y la del cuerpo no entra en la
+    // respuesta: los dos salen de la misma foto y el ETag describe exactamente el cuerpo
+    @Test
+    void etagYCuerpoSalenDeLaMismaFoto() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        String autorizacion = token(usuario);
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(14, 0), LocalTime.of(15, 0));
+        reservas(aula, horario, usuario, LocalDate.now(), 1);
+
+        AtomicBoolean escrita = new AtomicBoolean();
+        doAnswer(invocacion -> {
+            Object leidas = invocacion.callRealMethod();
+
+            // En otro hilo para que vaya en su propia transaccion
+            if (escrita.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> reservas(aula, horario, usuario, LocalDate.now().plusDays(1), 1))
+                        .get(10, TimeUnit.SECONDS);
+            }
+
+            return leidas;
+        }).when(versiones).leer();
+
+        String etag = mvc.perform(get("/reservas").param("aulaId", aula.getId().toString()).header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservas.length()").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // La escritura ya estaba confirmada, el ETag anterior no sirve para el cuerpo nuevo
+        mvc.perform(get("/reservas").param("aulaId", aula.getId().toString())
+                        .header("Authorization", autorizacion).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservas.length()").value(2));
+    }
+
+    // Sin desde las reservas anidadas empiezan hoy: el ETag lleva la fecha resuelta y al dia
+    // siguiente el de ayer ya no da 304 aunque no haya cambiado ninguna coleccion
+    @Test
+    void etagIncluyeLaExpansionResuelta() throws Exception {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        String autorizacion = token(usuario);
+        Aula aula = aula(30);
+        LocalDate hoy = LocalDate.now();
+
+        String porDefecto = mvc.perform(get("/aulas/{id}", aula.getId()).header("Authorization", autorizacion))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Lo mismo que pide el valor por defecto
+        mvc.perform(get("/aulas/{id}", aula.getId()).param("expand", "reservas[limit=3,desde=" + hoy + "]")
+                        .header("Authorization", autorizacion).header("If-None-Match", porDefecto))
+                .andExpect(status().isNotModified());
+
+        // Como si la peticion por defecto se repitiera manana
+        mvc.perform(get("/aulas/{id}", aula.getId()).param("expand", "reservas[limit=3,desde=" + hoy.plusDays(1) + "]")
+                        .header("Authorization", autorizacion).header("If-None-Match", porDefecto))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(porDefecto)));
+    }
+}
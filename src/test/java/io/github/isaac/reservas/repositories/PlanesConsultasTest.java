@@ -0,0 +1,87 @@
+package io.github.isaac.reservas.repositories;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Las consultas frecuentes tienen un indice que las resuelve en el esquema que crean las
+// migraciones. Se ejecuta EXPLAIN de cada una con los recorridos secuenciales desactivados: si aun
+// asi el plan recorre la tabla entera es que no hay ningun indice utilizable (con tablas pequenas
+// PostgreSQL prefiere el recorrido secuencial aunque exista el indice, por eso no basta con el
+// plan normal)
+class PlanesConsultasTest extends PruebaPostgres {
+    // Equivalentes SQL de las consultas que generan los repositorios, con valores de ejemplo
+    private static final Map<String, String> CONSULTAS = new LinkedHashMap<>();
+
+    static {
+        CONSULTAS.put("existsSolapamiento", """
+                SELECT COUNT(r.id) > 0 FROM reservas r JOIN horarios h ON h.id = r.horario_id
+                WHERE r.aula_id = 1 AND r.fecha = DATE '2025-01-01'
+                  AND h.inicio < TIME '10:00' AND h.fin > TIME '09:00' AND r.id <> 1
+                """);
+        CONSULTAS.put("borrado de un usuario", "SELECT * FROM reservas WHERE usuario_id = 1");
+        for (String columna : new String[]{"aula_id", "horario_id", "usuario_id"}) {
+            CONSULTAS.put("reservas anidadas (" + columna + ")", """
+                    SELECT r.id FROM unnest(ARRAY[1, 2]::bigint[]) AS e(id)
+                    CROSS JOIN LATERAL (
+                        SELECT id, fecha FROM reservas WHERE %s = e.id AND fecha >= DATE '2025-01-01'
+                        ORDER BY fecha, id LIMIT 3
+                    ) r
+                    """.formatted(columna));
+            CONSULTAS.put("total de reservas (" + columna + ")",
+                    "SELECT %1$s, COUNT(*) FROM reservas WHERE %1$s = ANY(ARRAY[1, 2]::bigint[]) GROUP BY %1$s".formatted(columna));
+        }
+        CONSULTAS.put("findByEmail", "SELECT * FROM usuarios WHERE email = 'profesor@example.com'");
+        CONSULTAS.put("buscarPagina", """
+                SELECT r.id FROM reservas r
+                WHERE (r.fecha, r.id) > (DATE '2025-01-01', 1)
+                ORDER BY r.fecha, r.id LIMIT 50
+                """);
+        CONSULTAS.put("buscarPagina (archivo)", """
+                SELECT r.id FROM reservas_historico r
+                WHERE (r.fecha, r.id) > (DATE '2025-01-01', 1)
+                ORDER BY r.fecha, r.id LIMIT 50
+                """);
+        // La clave primaria es (id, fecha): la busqueda por id recorre el indice de cada particion
+        CONSULTAS.put("findById", "SELECT * FROM reservas WHERE id = 1");
+        CONSULTAS.put("findFilasEnRango (aula)", "SELECT * FROM reservas WHERE aula_id = 1 AND fecha BETWEEN DATE '2025-01-06' AND DATE '2025-01-12'");
+        CONSULTAS.put("findFilasEnRango (usuario)", "SELECT * FROM reservas WHERE usuario_id = 1 AND fecha BETWEEN DATE '2025-01-06' AND DATE '2025-01-12'");
+        CONSULTAS.put("findBySerieAndFecha", "SELECT * FROM reservas WHERE serie_id = 1 AND fecha = DATE '2025-01-01'");
+        CONSULTAS.put("reservas de un horario", "SELECT id FROM reservas WHERE horario_id = 1");
+        CONSULTAS.put("sincronizacion", "SELECT * FROM reservas WHERE version_cambio >= 1 AND version_cambio < 2");
+        CONSULTAS.put("lapidas", "SELECT * FROM eliminaciones WHERE version_cambio >= 1 AND version_cambio < 2");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transacciones;
+
+    static Stream<Arguments> consultas() {
+        return CONSULTAS.entrySet().stream().map(consulta -> Arguments.of(consulta.getKey(), consulta.getValue()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void usaIndices(String nombre, String sql) {
+        String plan = new TransactionTemplate(transacciones).execute(estado -> {
+            // Solo afecta a esta transaccion
+            jdbc.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+        });
+
+        assertThat(plan).as("Plan de %s", nombre).doesNotContain("Seq Scan");
+    }
+}
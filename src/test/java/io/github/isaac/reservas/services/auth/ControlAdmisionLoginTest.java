@@ -0,0 +1,57 @@
+package io.github.isaac.reservas.services.auth;
+
+import io.github.isaac.reservas.exceptions.DemasiadasPeticionesException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Limites del login desde una IP compartida: los logins correctos no gastan las fichas de la IP
+// y los fallidos si
+class ControlAdmisionLoginTest {
+    private static final String IP = "10.0.0.1";
+
+    // 3 intentos por IP y 5 por cuenta, sin recarga apreciable durante la prueba
+    private final ControlAdmisionLogin admision = new ControlAdmisionLogin(
+            1, 8, Duration.ofSeconds(5), 3, 1, 5, 1, new SimpleMeterRegistry());
+
+    @AfterEach
+    void cerrar() {
+        admision.cerrar();
+    }
+
+    @Test
+    void loginsCorrectosDesdeLaMismaIpNoSeLimitan() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertThat(admision.autenticar(IP, "profesor" + i + "@centro.es", () -> "token")).isEqualTo("token");
+        }
+    }
+
+    @Test
+    void loginsFallidosGastanLasFichasDeLaIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            String cuenta = "fallo" + i + "@centro.es";
+            assertThatThrownBy(() -> admision.autenticar(IP, cuenta, () -> {
+                throw new BadCredentialsException("Credenciales no validas");
+            })).isInstanceOf(BadCredentialsException.class);
+        }
+
+        assertThatThrownBy(() -> admision.autenticar(IP, "otro@centro.es", () -> "token"))
+                .isInstanceOf(DemasiadasPeticionesException.class);
+    }
+
+    @Test
+    void elRegistroGastaFichasDeLaIpSiempre() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            admision.ejecutar(IP, "nuevo" + i + "@centro.es", () -> "hash");
+        }
+
+        assertThatThrownBy(() -> admision.ejecutar(IP, "nuevo@centro.es", () -> "hash"))
+                .isInstanceOf(DemasiadasPeticionesException.class);
+    }
+}
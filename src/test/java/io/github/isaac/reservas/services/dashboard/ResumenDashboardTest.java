@@ -0,0 +1,89 @@
+package io.github.isaac.reservas.services.dashboard;
+
+import io.github.isaac.reservas.PruebaPostgres;
+import io.github.isaac.reservas.dtos.reserva.ReservaPostRequest;
+import io.github.isaac.reservas.entities.Aula;
+import io.github.isaac.reservas.entities.Horario;
+import io.github.isaac.reservas.entities.Usuario;
+import io.github.isaac.reservas.services.ReservaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Un recalculo que ocurre entre el commit de una reserva y la llegada de su cambio ya la cuenta:
+// el cambio no se vuelve a sumar
+class ResumenDashboardTest extends PruebaPostgres {
+
+    @Autowired
+    private ResumenDashboard resumen;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private PlatformTransactionManager transacciones;
+
+    @Test
+    void recalculoEntreElCommitYElCambioNoCuentaDosVeces() {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(18, 0), LocalTime.of(19, 0));
+
+        resumen.reconciliar();
+        long antes = resumen.getResumen().totalReservas();
+
+        new TransactionTemplate(transacciones).executeWithoutResult(estado -> {
+            // Se registra antes que la del panel, su afterCommit se ejecuta primero
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resumen.reconciliar();
+                }
+            });
+
+            reservaService.addReserva(peticion(usuario, aula, horario, LocalDate.now().plusDays(3)));
+        });
+
+        assertThat(resumen.getResumen().totalReservas()).isEqualTo(antes + 1);
+
+        resumen.reconciliar();
+        assertThat(resumen.getResumen().totalReservas()).isEqualTo(antes + 1);
+    }
+
+    @Test
+    void cambiosNormalesSeSumanUnaVez() {
+        Usuario usuario = usuario("ROLE_ADMIN");
+        Aula aula = aula(30);
+        Horario horario = horario(LocalTime.of(19, 0), LocalTime.of(20, 0));
+
+        resumen.reconciliar();
+        long antes = resumen.getResumen().totalReservas();
+
+        reservaService.addReserva(peticion(usuario, aula, horario, LocalDate.now().plusDays(4)));
+        reservaService.addReserva(peticion(usuario, aula, horario, LocalDate.now().plusDays(5)));
+
+        assertThat(resumen.getResumen().totalReservas()).isEqualTo(antes + 2);
+
+        resumen.reconciliar();
+        assertThat(resumen.getResumen().totalReservas()).isEqualTo(antes + 2);
+    }
+
+    private static ReservaPostRequest peticion(Usuario usuario, Aula aula, Horario horario, LocalDate fecha) {
+        ReservaPostRequest peticion = new ReservaPostRequest();
+        peticion.setUsuarioId(usuario.getId());
+        peticion.setAulaId(aula.getId());
+        peticion.setHorarioId(horario.getId());
+        peticion.setFecha(fecha);
+        peticion.setMotivo("Prueba");
+        peticion.setAsistentes(10);
+        return peticion;
+    }
+}